@@ -0,0 +1,69 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of binning a catalog of prices for the histogram overlay, on one thread and on a pool with one worker per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HistogramBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"LINEAR", "LOG", "DISCRETE"})
+    public String scale;
+
+    private double[] prices;
+    private RangeState<Long> state;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        prices = new double[size];
+        for (int i = 0; i < size; i++) {
+            prices[i] = Math.min(50000, Math.exp(7 + random.nextGaussian()));
+        }
+        state = RangeState.create(500L, 50000L);
+        if ("LOG".equals(scale)) {
+            state = state.withScale(ValueScale.LOG);
+        } else if ("DISCRETE".equals(scale)) {
+            state = state.withDiscrete(true);
+        }
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public ValueHistogram sequential() {
+        final ValueHistogram histogram = new ValueHistogram(state, 64);
+        histogram.addAll(prices);
+        return histogram;
+    }
+
+    @Benchmark
+    public ValueHistogram parallel() {
+        final ValueHistogram histogram = new ValueHistogram(state, 64);
+        histogram.addAll(prices, pool);
+        return histogram;
+    }
+}
@@ -0,0 +1,83 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event cost of the conversions between screen, normalized and value space.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RangeConversionBenchmark {
+
+    private static final int INPUTS = 1024;
+    private static final int WIDTH = 1080;
+    private static final float PADDING = 24f;
+
+    private RangeState<Integer> state;
+    private RangeState<Integer> logState;
+    private final double[] normalized = new double[INPUTS];
+    private final double[] values = new double[INPUTS];
+    private final float[] screen = new float[INPUTS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        state = RangeState.create(500, 50000);
+        logState = state.withScale(ValueScale.LOG);
+        Random random = new Random(42);
+        for (int i = 0; i < INPUTS; i++) {
+            normalized[i] = random.nextDouble();
+            values[i] = 500 + random.nextDouble() * 49500;
+            screen[i] = random.nextFloat() * WIDTH;
+        }
+    }
+
+    private int nextInput() {
+        return next = (next + 1) & (INPUTS - 1);
+    }
+
+    @Benchmark
+    public double normalizedToPrim() {
+        return state.normalizedToPrim(normalized[nextInput()]);
+    }
+
+    @Benchmark
+    public Number normalizedToBoxedValue() {
+        return state.numberType.toNumber(state.normalizedToPrim(normalized[nextInput()]));
+    }
+
+    @Benchmark
+    public double valueToNormalized() {
+        return state.valueToNormalized(values[nextInput()]);
+    }
+
+    @Benchmark
+    public double logNormalizedToPrim() {
+        return logState.normalizedToPrim(normalized[nextInput()]);
+    }
+
+    @Benchmark
+    public double logValueToNormalized() {
+        return logState.valueToNormalized(values[nextInput()]);
+    }
+
+    @Benchmark
+    public double screenToNormalized() {
+        return RangeState.screenToNormalized(screen[nextInput()], WIDTH, PADDING);
+    }
+
+    @Benchmark
+    public float normalizedToScreen() {
+        return RangeState.normalizedToScreen(normalized[nextInput()], WIDTH, PADDING);
+    }
+}
@@ -0,0 +1,58 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of counting the values in a range, as done on every notification of a drag, against a linear scan.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RangeCountBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private double[] prices;
+    private SortedValueIndex index;
+    private double min;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        prices = new double[size];
+        for (int i = 0; i < size; i++) {
+            prices[i] = Math.exp(7 + random.nextGaussian());
+        }
+        index = new SortedValueIndex(prices);
+    }
+
+    @Benchmark
+    public int indexCount() {
+        min = min >= 5000 ? 0 : min + 7;
+        return index.count(min, min + 2000);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        min = min >= 5000 ? 0 : min + 7;
+        final double max = min + 2000;
+        int count = 0;
+        for (double price : prices) {
+            if (price >= min && price <= max) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
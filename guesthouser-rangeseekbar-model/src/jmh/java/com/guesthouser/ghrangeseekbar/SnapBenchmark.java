@@ -0,0 +1,82 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of snapping a value to its closest stop, for the arithmetic decade path, the binary search over arbitrary
+ * stops and the boxed linear scan the bar used before {@link SnapIndex}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SnapBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    @Param({"1000", "50000", "10000000", "1000000000000"})
+    public long max;
+
+    private SnapIndex decade;
+    private SnapIndex searched;
+    private List<Long> boxed;
+    private final long[] values = new long[INPUTS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        decade = SnapIndex.decadeSteps(0, max);
+        long[] stops = new long[decade.size()];
+        boxed = new ArrayList<>(stops.length);
+        for (int i = 0; i < stops.length; i++) {
+            stops[i] = decade.get(i);
+            boxed.add(stops[i]);
+        }
+        searched = SnapIndex.of(stops);
+        Random random = new Random(42);
+        for (int i = 0; i < INPUTS; i++) {
+            values[i] = (long) (random.nextDouble() * max);
+        }
+    }
+
+    private long nextValue() {
+        next = (next + 1) & (INPUTS - 1);
+        return values[next];
+    }
+
+    @Benchmark
+    public long decadeNearest() {
+        return decade.nearest(nextValue());
+    }
+
+    @Benchmark
+    public long binarySearchNearest() {
+        return searched.nearest(nextValue());
+    }
+
+    @Benchmark
+    public long boxedLinearScan() {
+        final long value = nextValue();
+        long min = Math.abs(boxed.get(0) - value);
+        long closest = boxed.get(0);
+        for (long stop : boxed) {
+            final long diff = Math.abs(stop - value);
+            if (diff < min) {
+                min = diff;
+                closest = stop;
+            }
+        }
+        return closest;
+    }
+}
@@ -0,0 +1,34 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the snap table and a whole range state, as done by setRangeValues, across range sizes. Decade
+ * tables are built on first use, so {@link #decadeSteps()} reads a stop to include the build.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnapTableBenchmark {
+
+    @Param({"100", "50000", "10000000", "1000000000000"})
+    public long max;
+
+    @Benchmark
+    public long decadeSteps() {
+        return SnapIndex.decadeSteps(1, max).last();
+    }
+
+    @Benchmark
+    public RangeState<Long> rangeState() {
+        return RangeState.create(1L, max);
+    }
+}
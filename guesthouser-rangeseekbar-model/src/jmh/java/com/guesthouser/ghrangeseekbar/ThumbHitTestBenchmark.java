@@ -0,0 +1,61 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding the touched thumb of a multi-thumb bar, by binary search against a scan over all thumbs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ThumbHitTestBenchmark {
+
+    @Param({"2", "50", "500"})
+    public int thumbs;
+
+    private ThumbPositions positions;
+    private double radius;
+    private double touch;
+
+    @Setup
+    public void setUp() {
+        positions = new ThumbPositions(thumbs);
+        // thumbs of 48px on a 1080px bar
+        radius = 24d / 1080d;
+    }
+
+    private double nextTouch() {
+        touch = touch >= 1d ? 0d : touch + 0.0037d;
+        return touch;
+    }
+
+    @Benchmark
+    public int binarySearch() {
+        return positions.hitTest(nextTouch(), radius);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        final double position = nextTouch();
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < positions.size(); i++) {
+            if (Math.abs(positions.get(i) - position) <= radius) {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        return position > 0.5d ? first : last;
+    }
+}
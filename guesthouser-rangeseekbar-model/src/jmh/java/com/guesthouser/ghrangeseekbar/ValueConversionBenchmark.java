@@ -0,0 +1,72 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting a thumb position to a value, with the fixed-point engine against the former path through a double
+ * rounded with {@code Math.round(v * 100) / 100d}. The *Prim variants stop before boxing, as on a drag frame; the
+ * others box like a listener notification does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValueConversionBenchmark {
+
+    @Param({"INTEGER", "DOUBLE", "BIG_DECIMAL"})
+    public NumberType type;
+
+    private RangeState<?> state;
+    private double normalized;
+
+    @Setup
+    public void setUp() {
+        switch (type) {
+            case INTEGER:
+                state = RangeState.create(500, 50000);
+                break;
+            case DOUBLE:
+                state = RangeState.create(0.5d, 999.99d);
+                break;
+            default:
+                state = RangeState.create(new BigDecimal("0.10"), new BigDecimal("1234.56"));
+                break;
+        }
+    }
+
+    private double nextPosition() {
+        normalized = normalized >= 1d ? 0d : normalized + 0.0001d;
+        return normalized;
+    }
+
+    @Benchmark
+    public double legacyPrim() {
+        final double v = state.absoluteMinValuePrim
+                + nextPosition() * (state.absoluteMaxValuePrim - state.absoluteMinValuePrim);
+        return Math.round(v * 100) / 100d;
+    }
+
+    @Benchmark
+    public long fixedPointPrim() {
+        return state.normalizedToUnscaled(nextPosition());
+    }
+
+    @Benchmark
+    public Number legacy() {
+        return state.numberType.toNumber(legacyPrim());
+    }
+
+    @Benchmark
+    public Number fixedPoint() {
+        return state.unscaledToNumber(fixedPointPrim());
+    }
+}
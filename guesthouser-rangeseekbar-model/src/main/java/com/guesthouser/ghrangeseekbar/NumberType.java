@@ -0,0 +1,91 @@
+package com.guesthouser.ghrangeseekbar;
+
+import java.math.BigDecimal;
+
+/**
+ * Utility enumeration used to convert between Numbers and doubles.
+ *
+ * @author Stephan Tittel (stephan.tittel@kom.tu-darmstadt.de)
+ */
+public enum NumberType {
+    LONG, DOUBLE, INTEGER, FLOAT, SHORT, BYTE, BIG_DECIMAL;
+
+    public static <E extends Number> NumberType fromNumber(E value) throws IllegalArgumentException {
+        if (value instanceof Long) {
+            return LONG;
+        }
+        if (value instanceof Double) {
+            return DOUBLE;
+        }
+        if (value instanceof Integer) {
+            return INTEGER;
+        }
+        if (value instanceof Float) {
+            return FLOAT;
+        }
+        if (value instanceof Short) {
+            return SHORT;
+        }
+        if (value instanceof Byte) {
+            return BYTE;
+        }
+        if (value instanceof BigDecimal) {
+            return BIG_DECIMAL;
+        }
+        throw new IllegalArgumentException("Number class '" + value.getClass().getName() + "' is not supported");
+    }
+
+    /**
+     * Returns true for the types without decimal places.
+     */
+    public boolean isIntegral() {
+        return this == LONG || this == INTEGER || this == SHORT || this == BYTE;
+    }
+
+    /**
+     * Converts a fixed-point value, {@code unscaled * 10^-scale}, to a Number of this type. BIG_DECIMAL values are
+     * exact; integral values are truncated.
+     */
+    public Number toNumber(long unscaled, int scale) {
+        if (this == BIG_DECIMAL) {
+            return BigDecimal.valueOf(unscaled, scale);
+        }
+        if (scale == 0) {
+            switch (this) {
+                case LONG:
+                    return Long.valueOf(unscaled);
+                case INTEGER:
+                    return Integer.valueOf((int) unscaled);
+                case SHORT:
+                    return Short.valueOf((short) unscaled);
+                case BYTE:
+                    return Byte.valueOf((byte) unscaled);
+            }
+            return toNumber((double) unscaled);
+        }
+        if (isIntegral()) {
+            return toNumber(unscaled / SnapIndex.pow10(scale), 0);
+        }
+        return toNumber((double) unscaled / SnapIndex.pow10(scale));
+    }
+
+    public Number toNumber(double value) {
+        switch (this) {
+            case LONG:
+                return Long.valueOf((long) value);
+            case DOUBLE:
+                return value;
+            case INTEGER:
+                return Integer.valueOf((int) value);
+            case FLOAT:
+                return Float.valueOf((float) value);
+            case SHORT:
+                return Short.valueOf((short) value);
+            case BYTE:
+                return Byte.valueOf((byte) value);
+            case BIG_DECIMAL:
+                return BigDecimal.valueOf(value);
+        }
+        throw new InstantiationError("can't convert " + this + " to a Number object");
+    }
+}
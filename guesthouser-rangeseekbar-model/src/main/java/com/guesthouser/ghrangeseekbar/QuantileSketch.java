@@ -0,0 +1,327 @@
+package com.guesthouser.ghrangeseekbar;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Streaming, mergeable quantile sketch in bounded memory, used to derive snap stops from observed values such as
+ * listing prices.
+ * <p/>
+ * It is a KLL sketch: values enter level 0, and a level that outgrows its capacity is sorted and every other item is
+ * promoted to the next level, where each item stands for twice as many values. Capacities shrink geometrically towards
+ * the lower levels, so the sketch holds about {@code 3k} values however many have been added, and the rank error of a
+ * quantile is around {@code 1.7 / k}. Sketches built separately, e.g. per city, can be merged without the raw data.
+ * <p/>
+ * Compaction picks the promoted half at random from a seeded generator, so the same values added in the same order
+ * always give the same quantiles and snap stops.
+ * <p/>
+ * Not thread-safe; build one sketch per thread and merge them.
+ */
+public final class QuantileSketch {
+
+    public static final int DEFAULT_K = 200;
+    public static final long DEFAULT_SEED = 0x5EEDL;
+
+    private static final int MIN_CAPACITY = 8;
+    private static final double CAPACITY_DECAY = 2d / 3d;
+
+    private final int k;
+    private double[][] levels;
+    private int[] sizes;
+    // capacity per level and their sum, recomputed when a level is added
+    private int[] capacities;
+    private int totalCapacity;
+    private int levelCount;
+    private int retained;
+    private long count;
+    private double min = Double.NaN, max = Double.NaN;
+    // picks which half of a compacted level is promoted, so the errors of the compactions cancel out on average
+    private final Random random;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * @param k The accuracy parameter; memory grows linearly and the rank error shrinks linearly with it.
+     */
+    public QuantileSketch(int k) {
+        this(k, new Random(DEFAULT_SEED));
+    }
+
+    /**
+     * @param k      The accuracy parameter; memory grows linearly and the rank error shrinks linearly with it.
+     * @param random Picks which half of a compacted level is promoted. Used by this sketch only.
+     */
+    public QuantileSketch(int k, Random random) {
+        if (k < MIN_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY);
+        }
+        this.k = k;
+        this.random = random;
+        this.levels = new double[4][];
+        this.sizes = new int[4];
+        this.capacities = new int[4];
+        ensureLevel(0);
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else if (value < min) {
+            min = value;
+        } else if (value > max) {
+            max = value;
+        }
+        count++;
+        append(0, value);
+        compress();
+    }
+
+    public void addAll(double[] values) {
+        for (double value : values) {
+            add(value);
+        }
+    }
+
+    public void addAll(long[] values) {
+        for (long value : values) {
+            add(value);
+        }
+    }
+
+    /**
+     * Adds all values of the other sketch to this one. The other sketch is left unchanged.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int level = 0; level < other.levelCount; level++) {
+            ensureLevel(level);
+            // read the size first, other may be this sketch
+            final int size = other.sizes[level];
+            for (int i = 0; i < size; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        count += other.count;
+        compress();
+    }
+
+    /**
+     * Number of values added to this sketch, including merged ones.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Number of values the sketch currently retains.
+     */
+    public int retained() {
+        return retained;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Returns the approximate value at the given rank.
+     *
+     * @param fraction The rank as a fraction of all values, 0 for the minimum and 1 for the maximum.
+     * @return The value, or NaN if the sketch is empty.
+     */
+    public double quantile(double fraction) {
+        return quantiles(new double[]{fraction})[0];
+    }
+
+    /**
+     * Returns the approximate values at the given ranks.
+     *
+     * @param fractions The ranks as fractions of all values, in increasing order.
+     * @return The values, NaN if the sketch is empty.
+     */
+    public double[] quantiles(double[] fractions) {
+        final double[] result = new double[fractions.length];
+        if (count == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+        final double[] values = new double[retained];
+        final long[] weights = new long[retained];
+        sortedWeightedItems(values, weights);
+
+        int item = 0;
+        long cumulative = weights[0];
+        for (int i = 0; i < fractions.length; i++) {
+            final double fraction = fractions[i];
+            if (fraction <= 0d) {
+                result[i] = min;
+            } else if (fraction >= 1d) {
+                result[i] = max;
+            } else {
+                final double rank = fraction * count;
+                while (cumulative < rank && item < retained - 1) {
+                    cumulative += weights[++item];
+                }
+                result[i] = values[item];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Derives snap stops at evenly spaced quantiles: the minimum, the maximum and {@code stops - 2} quantiles in
+     * between, rounded to whole numbers. Stops that round to the same value are merged, so the table may be smaller.
+     *
+     * @param stops The number of stops, at least 2.
+     * @return The snap table.
+     */
+    public SnapIndex snapStops(int stops) {
+        return snapStops(stops, 0);
+    }
+
+    /**
+     * Derives snap stops like {@link #snapStops(int)}, rounded to the given number of decimal places instead of whole
+     * numbers, for ranges of decimal values. The stops are fixed-point values in units of 10^-decimalScale, to be set
+     * with the same decimal scale, e.g. {@code setSnapIndex(sketch.snapStops(10, 2), 2)}.
+     *
+     * @param stops        The number of stops, at least 2.
+     * @param decimalScale The number of decimal places, from 0 to {@link RangeState#MAX_DECIMAL_SCALE}.
+     * @return The snap table in fixed-point units.
+     */
+    public SnapIndex snapStops(int stops, int decimalScale) {
+        if (stops < 2) {
+            throw new IllegalArgumentException("At least two stops are needed");
+        }
+        if (decimalScale < 0 || decimalScale > RangeState.MAX_DECIMAL_SCALE) {
+            throw new IllegalArgumentException("The decimal scale must be between 0 and "
+                    + RangeState.MAX_DECIMAL_SCALE);
+        }
+        if (count == 0) {
+            throw new IllegalStateException("The sketch is empty");
+        }
+        final double[] fractions = new double[stops];
+        for (int i = 0; i < stops; i++) {
+            fractions[i] = (double) i / (stops - 1);
+        }
+        final double[] values = quantiles(fractions);
+        final double factor = SnapIndex.pow10(decimalScale);
+        final long[] rounded = new long[stops];
+        for (int i = 0; i < stops; i++) {
+            rounded[i] = Math.round(values[i] * factor);
+        }
+        return SnapIndex.of(rounded);
+    }
+
+    /**
+     * Fills the arrays with all retained values in increasing order and the number of values each one stands for.
+     * Sorting a level in place does not change what it represents, so the levels are sorted and then merged.
+     */
+    private void sortedWeightedItems(double[] values, long[] weights) {
+        final int[] cursors = new int[levelCount];
+        for (int level = 0; level < levelCount; level++) {
+            Arrays.sort(levels[level], 0, sizes[level]);
+        }
+        for (int n = 0; n < values.length; n++) {
+            int next = -1;
+            for (int level = 0; level < levelCount; level++) {
+                if (cursors[level] < sizes[level]
+                        && (next < 0 || levels[level][cursors[level]] < levels[next][cursors[next]])) {
+                    next = level;
+                }
+            }
+            values[n] = levels[next][cursors[next]++];
+            weights[n] = 1L << next;
+        }
+    }
+
+    /**
+     * Compacts the lowest level that exceeds its capacity until the sketch fits its total capacity again.
+     */
+    private void compress() {
+        while (retained >= totalCapacity) {
+            int level = 0;
+            while (sizes[level] < capacities[level]) {
+                level++;
+            }
+            compact(level);
+        }
+    }
+
+    private void updateCapacities() {
+        totalCapacity = 0;
+        for (int level = 0; level < levelCount; level++) {
+            final int depth = levelCount - level - 1;
+            capacities[level] = Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+            totalCapacity += capacities[level];
+        }
+    }
+
+    /**
+     * Sorts the level and promotes every other item to the next level. With an odd size the largest item stays.
+     */
+    private void compact(int level) {
+        ensureLevel(level + 1);
+        final double[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+        final boolean keepLast = (size & 1) == 1;
+        final double last = items[size - 1];
+        if (keepLast) {
+            size--;
+        }
+        for (int i = random.nextBoolean() ? 1 : 0; i < size; i += 2) {
+            append(level + 1, items[i]);
+        }
+        retained -= sizes[level];
+        sizes[level] = 0;
+        if (keepLast) {
+            items[0] = last;
+            sizes[level] = 1;
+            retained++;
+        }
+    }
+
+    private void ensureLevel(int level) {
+        if (level < levelCount) {
+            return;
+        }
+        if (level >= levels.length) {
+            levels = Arrays.copyOf(levels, levels.length * 2);
+            sizes = Arrays.copyOf(sizes, sizes.length * 2);
+            capacities = Arrays.copyOf(capacities, capacities.length * 2);
+        }
+        for (int l = levelCount; l <= level; l++) {
+            levels[l] = new double[k];
+        }
+        levelCount = level + 1;
+        updateCapacities();
+    }
+
+    private void append(int level, double value) {
+        double[] items = levels[level];
+        if (sizes[level] == items.length) {
+            items = levels[level] = Arrays.copyOf(items, items.length * 2);
+        }
+        items[sizes[level]++] = value;
+        retained++;
+    }
+}
@@ -0,0 +1,395 @@
+package com.guesthouser.ghrangeseekbar;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable snapshot of the range of a GHRangeSeekBar: the absolute bounds, the value type, the scale, the snap table
+ * and the selection last requested through the setters. It also holds the value and screen conversions, so the
+ * whole model can be exercised on a plain JVM. Every change produces a new snapshot, so a snapshot can be
+ * published from any thread and read without locking.
+ * <p/>
+ * The requested selection carries a stamp per thumb. The UI thread only applies a thumb's selection when its stamp
+ * changed, so publishing a new range does not move a thumb the user is dragging.
+ *
+ * @param <T> The Number type of the range values.
+ */
+public final class RangeState<T extends Number> {
+
+    /**
+     * Number of decimal places of DOUBLE, FLOAT and BIG_DECIMAL values unless set otherwise.
+     */
+    public static final int DEFAULT_DECIMAL_SCALE = 2;
+    public static final int MAX_DECIMAL_SCALE = 9;
+
+    // 2^63, the first double beyond Long.MAX_VALUE
+    private static final double TWO_POW_63 = 9.223372036854775808E18;
+
+    public final T absoluteMinValue, absoluteMaxValue;
+    public final double absoluteMinValuePrim, absoluteMaxValuePrim;
+    public final NumberType numberType;
+    public final boolean discrete;
+    public final ValueScale scale;
+    // null for linear scales
+    public final ScaleTable scaleTable;
+    // the stops in fixed-point units, like absoluteMinUnscaled
+    public final SnapIndex snapIndex;
+    // true if the snap table was set explicitly and is kept when the range changes
+    public final boolean customSnapIndex;
+    // decimal places of non-integral values; values are computed as longs in units of 10^-decimalScale
+    public final int decimalScale;
+    // 1 for integral types, 10^decimalScale otherwise
+    public final long unscaledFactor;
+    public final long absoluteMinUnscaled, absoluteMaxUnscaled;
+    public final double selectedMinNormalized, selectedMaxNormalized;
+    public final int minSelectionStamp, maxSelectionStamp;
+
+    // fraction of a unit added before truncating integral values, so they round like values with decimalScale places
+    private final double integralGuard;
+    // the explicitly set stops in values of the range, scaled into snapIndex; null if the stops are derived
+    private final SnapIndex customStops;
+    // decimal places of the custom stops, rescaled to decimalScale when the snap table is built
+    private final int customStopsScale;
+
+    private RangeState(T absoluteMinValue, T absoluteMaxValue, boolean discrete,
+                       ValueScale scale, ScaleTable scaleTable, SnapIndex customStops, int customStopsScale,
+                       SnapIndex snapIndex, int decimalScale, double selectedMinNormalized,
+                       double selectedMaxNormalized, int minSelectionStamp, int maxSelectionStamp) {
+        this.absoluteMinValue = absoluteMinValue;
+        this.absoluteMaxValue = absoluteMaxValue;
+        this.absoluteMinValuePrim = absoluteMinValue.doubleValue();
+        this.absoluteMaxValuePrim = absoluteMaxValue.doubleValue();
+        this.numberType = NumberType.fromNumber(absoluteMinValue);
+        this.discrete = discrete;
+        this.scale = scale;
+        this.scaleTable = scaleTable;
+        this.customStops = customStops;
+        this.customStopsScale = customStopsScale;
+        this.customSnapIndex = customStops != null;
+        this.decimalScale = decimalScale;
+        this.unscaledFactor = numberType.isIntegral() ? 1L : SnapIndex.pow10(decimalScale);
+        this.integralGuard = 0.5d / SnapIndex.pow10(decimalScale);
+        this.absoluteMinUnscaled = toUnscaled(absoluteMinValue, true);
+        this.absoluteMaxUnscaled = toUnscaled(absoluteMaxValue, true);
+        if (snapIndex == null) {
+            // decade tables are built on first use, so this is cheap until DISCRETE mode snaps
+            snapIndex = customStops != null
+                    ? customStops.rescaled(customStopsScale, numberType.isIntegral() ? 0 : decimalScale)
+                    : SnapIndex.decadeSteps(absoluteMinUnscaled, absoluteMaxUnscaled);
+        }
+        this.snapIndex = snapIndex;
+        this.selectedMinNormalized = selectedMinNormalized;
+        this.selectedMaxNormalized = selectedMaxNormalized;
+        this.minSelectionStamp = minSelectionStamp;
+        this.maxSelectionStamp = maxSelectionStamp;
+    }
+
+    /**
+     * Creates the initial state for the given range, in LINEAR mode with the whole range selected.
+     */
+    public static <T extends Number> RangeState<T> create(T absoluteMinValue, T absoluteMaxValue) {
+        return new RangeState<T>(absoluteMinValue, absoluteMaxValue, false,
+                ValueScale.LINEAR, null, null, 0, null,
+                DEFAULT_DECIMAL_SCALE, 0d, 1d, 0, 0);
+    }
+
+    public RangeState<T> withRange(T absoluteMinValue, T absoluteMaxValue) {
+        return new RangeState<T>(absoluteMinValue, absoluteMaxValue, discrete,
+                scale, scale.createTable(absoluteMinValue.doubleValue(), absoluteMaxValue.doubleValue()),
+                customStops, customStopsScale, null, decimalScale, selectedMinNormalized, selectedMaxNormalized,
+                minSelectionStamp, maxSelectionStamp);
+    }
+
+    public RangeState<T> withDiscrete(boolean discrete) {
+        return new RangeState<T>(absoluteMinValue, absoluteMaxValue, discrete, scale, scaleTable, customStops,
+                customStopsScale, snapIndex, decimalScale, selectedMinNormalized, selectedMaxNormalized,
+                minSelectionStamp, maxSelectionStamp);
+    }
+
+    public RangeState<T> withScale(ValueScale scale) {
+        return new RangeState<T>(absoluteMinValue, absoluteMaxValue, discrete,
+                scale, scale.createTable(absoluteMinValuePrim, absoluteMaxValuePrim), customStops, customStopsScale,
+                snapIndex, decimalScale, selectedMinNormalized, selectedMaxNormalized,
+                minSelectionStamp, maxSelectionStamp);
+    }
+
+    /**
+     * Replaces the snap table used in DISCRETE mode, e.g. with stops derived from a {@link QuantileSketch}. The table
+     * is kept when the range changes.
+     *
+     * @param snapIndex The stops in whole values of the range, or null to go back to the stops derived from the
+     *                  absolute range. For DOUBLE, FLOAT and BIG_DECIMAL ranges they are scaled to fixed-point units
+     *                  here.
+     */
+    public RangeState<T> withSnapIndex(SnapIndex snapIndex) {
+        return withSnapIndex(snapIndex, 0);
+    }
+
+    /**
+     * Replaces the snap table with stops that have decimal places, e.g. from
+     * {@link QuantileSketch#snapStops(int, int)}. The stops are rescaled to {@link #decimalScale} places, or to whole
+     * values for integral ranges, whenever the snap table is built.
+     *
+     * @param snapIndex  The stops in fixed-point units of 10^-stopsScale, or null to go back to the stops derived from
+     *                   the absolute range.
+     * @param stopsScale The decimal places of the stops, from 0 to {@link #MAX_DECIMAL_SCALE}.
+     */
+    public RangeState<T> withSnapIndex(SnapIndex snapIndex, int stopsScale) {
+        if (stopsScale < 0 || stopsScale > MAX_DECIMAL_SCALE) {
+            throw new IllegalArgumentException("The decimal scale must be between 0 and " + MAX_DECIMAL_SCALE);
+        }
+        return new RangeState<T>(absoluteMinValue, absoluteMaxValue, discrete, scale, scaleTable, snapIndex, stopsScale,
+                null, decimalScale, selectedMinNormalized, selectedMaxNormalized, minSelectionStamp, maxSelectionStamp);
+    }
+
+    /**
+     * Sets the number of decimal places of DOUBLE, FLOAT and BIG_DECIMAL values. Integral values are always whole.
+     *
+     * @param decimalScale The number of decimal places, from 0 to {@link #MAX_DECIMAL_SCALE}.
+     */
+    public RangeState<T> withDecimalScale(int decimalScale) {
+        if (decimalScale < 0 || decimalScale > MAX_DECIMAL_SCALE) {
+            throw new IllegalArgumentException("The decimal scale must be between 0 and " + MAX_DECIMAL_SCALE);
+        }
+        return new RangeState<T>(absoluteMinValue, absoluteMaxValue, discrete, scale, scaleTable, customStops,
+                customStopsScale, null, decimalScale, selectedMinNormalized, selectedMaxNormalized,
+                minSelectionStamp, maxSelectionStamp);
+    }
+
+    public RangeState<T> withSelectedMin(double normalized) {
+        return new RangeState<T>(absoluteMinValue, absoluteMaxValue, discrete, scale, scaleTable, customStops,
+                customStopsScale, snapIndex, decimalScale, normalized, selectedMaxNormalized,
+                minSelectionStamp + 1, maxSelectionStamp);
+    }
+
+    public RangeState<T> withSelectedMax(double normalized) {
+        return new RangeState<T>(absoluteMinValue, absoluteMaxValue, discrete, scale, scaleTable, customStops,
+                customStopsScale, snapIndex, decimalScale, selectedMinNormalized, normalized,
+                minSelectionStamp, maxSelectionStamp + 1);
+    }
+
+    /**
+     * Converts a normalized value to a fixed-point value between absolute minimum and maximum, in units of
+     * 1 / {@link #unscaledFactor}. The ends of the range convert exactly, also for longs beyond 2^53, and decimal values
+     * carry no float noise. The offset into the range is unsigned, so ranges wider than Long.MAX_VALUE, e.g.
+     * Long.MIN_VALUE to Long.MAX_VALUE, still map monotonically into the range.
+     */
+    public long normalizedToUnscaled(double normalized) {
+        if (normalized <= 0d) {
+            return absoluteMinUnscaled;
+        }
+        if (normalized >= 1d) {
+            return absoluteMaxUnscaled;
+        }
+        if (scaleTable != null) {
+            return valueToUnscaled(scaleTable.toValue(normalized));
+        }
+        final long span = absoluteMaxUnscaled - absoluteMinUnscaled;
+        final double offset = normalized * unsignedToDouble(span);
+        long units = doubleToUnsigned(Math.floor(unscaledFactor == 1L ? offset + integralGuard : offset + 0.5d));
+        if ((units ^ Long.MIN_VALUE) > (span ^ Long.MIN_VALUE)) {
+            // the span was rounded up to a double
+            units = span;
+        }
+        return absoluteMinUnscaled + units;
+    }
+
+    /**
+     * Converts a normalized value to a double in the value space between absolute minimum and maximum.
+     */
+    public double normalizedToPrim(double normalized) {
+        return unscaledToPrim(normalizedToUnscaled(normalized));
+    }
+
+    /**
+     * Converts a fixed-point value to a double.
+     */
+    public double unscaledToPrim(long unscaled) {
+        return unscaledFactor == 1L ? unscaled : (double) unscaled / unscaledFactor;
+    }
+
+    /**
+     * Converts a double to the closest fixed-point value; integral values are truncated after rounding to
+     * {@link #decimalScale} places.
+     */
+    public long valueToUnscaled(double value) {
+        return unscaledFactor == 1L ? (long) Math.floor(value + integralGuard) : Math.round(value * unscaledFactor);
+    }
+
+    /**
+     * Converts a fixed-point value to the Number type of the range. Only BIG_DECIMAL values are not cached by the
+     * platform; they are built from the unscaled value without going through a double.
+     */
+    public Number unscaledToNumber(long unscaled) {
+        if (numberType == NumberType.DOUBLE || numberType == NumberType.FLOAT) {
+            return numberType.toNumber((double) unscaled / unscaledFactor);
+        }
+        return numberType.toNumber(unscaled, unscaledFactor == 1L ? 0 : decimalScale);
+    }
+
+    /**
+     * Converts a fixed-point value to a normalized double. On a linear scale the offset into the range is taken in
+     * fixed-point units, so stops such as 0.15 in 0.10 to 0.30 normalize exactly.
+     */
+    public double unscaledToNormalized(long unscaled) {
+        final long span = absoluteMaxUnscaled - absoluteMinUnscaled;
+        if (scaleTable != null || span == 0 || unscaled < absoluteMinUnscaled || unscaled > absoluteMaxUnscaled) {
+            // non-linear, empty or outside the range
+            return valueToNormalized(unscaledToPrim(unscaled));
+        }
+        return unsignedToDouble(unscaled - absoluteMinUnscaled) / unsignedToDouble(span);
+    }
+
+    /**
+     * Converts the given primitive value to a normalized double.
+     */
+    public double valueToNormalized(double value) {
+        if (0 == absoluteMaxValuePrim - absoluteMinValuePrim) {
+            // prevent division by zero, simply return 0.
+            return 0d;
+        }
+        if (scaleTable != null) {
+            return scaleTable.toNormalized(value);
+        }
+        return (value - absoluteMinValuePrim) / (absoluteMaxValuePrim - absoluteMinValuePrim);
+    }
+
+    /**
+     * Returns true if absolute minimum and maximum are equal, i.e. values cannot be normalized.
+     */
+    public boolean isEmpty() {
+        return 0 == (absoluteMaxValuePrim - absoluteMinValuePrim);
+    }
+
+    /**
+     * Returns the stop closest to the value at the given normalized position, as a fixed-point value within the
+     * absolute range. See {@link #snapUnscaled(long)}.
+     */
+    public long nearestStop(double normalized) {
+        return snapUnscaled(normalizedToUnscaled(normalized));
+    }
+
+    /**
+     * Snaps a fixed-point value to the closest stop within the absolute range. The ends of the range count as stops,
+     * so a range that does not start or end on a stop, e.g. 523 to 52000 with stops rounded to 500 and 60000, still
+     * snaps to its ends and never outside. Ties are resolved towards the lower stop.
+     *
+     * @param unscaled The value in units of 1 / {@link #unscaledFactor}. Clamped to the absolute range.
+     * @return The stop in the same units.
+     */
+    public long snapUnscaled(long unscaled) {
+        final long min = absoluteMinUnscaled;
+        final long max = absoluteMaxUnscaled;
+        unscaled = Math.max(min, Math.min(max, unscaled));
+        long stop = snapIndex.nearest(unscaled);
+        if (stop < min) {
+            stop = snapIndex.ceiling(min);
+        } else if (stop > max) {
+            stop = snapIndex.floor(max);
+        }
+        if (stop < min || stop > max) {
+            // no stop within the range
+            return SnapIndex.isCloserToLower(min, unscaled, max) ? min : max;
+        }
+        // any stop between the end and the value would have been the nearest one
+        if (stop > unscaled) {
+            return SnapIndex.isCloserToLower(min, unscaled, stop) ? min : stop;
+        }
+        if (stop < unscaled) {
+            return SnapIndex.isCloserToLower(stop, unscaled, max) ? stop : max;
+        }
+        return stop;
+    }
+
+    /**
+     * Converts a normalized value into screen space.
+     *
+     * @param normalizedCoord The normalized value to convert.
+     * @param width           The width of the bar in pixels.
+     * @param padding         The horizontal padding of the line in pixels.
+     * @return The converted value in screen space.
+     */
+    public static float normalizedToScreen(double normalizedCoord, int width, float padding) {
+        return (float) (padding + normalizedCoord * (width - 2 * padding));
+    }
+
+    /**
+     * Converts screen space x-coordinates into normalized values.
+     *
+     * @param screenCoord The x-coordinate in screen space to convert.
+     * @param width       The width of the bar in pixels.
+     * @param padding     The horizontal padding of the line in pixels.
+     * @return The normalized value.
+     */
+    public static double screenToNormalized(float screenCoord, int width, float padding) {
+        if (width <= 2 * padding) {
+            // prevent division by zero, simply return 0.
+            return 0d;
+        } else {
+            double result = (screenCoord - padding) / (width - 2 * padding);
+            return Math.min(1d, Math.max(0d, result));
+        }
+    }
+
+    /**
+     * Converts a value of the range type to a fixed-point value without going through a double, except for DOUBLE and
+     * FLOAT values, which are rounded to {@link #decimalScale} places. Values too large for a fixed-point long lie
+     * outside the range; they saturate to Long.MIN_VALUE or Long.MAX_VALUE.
+     */
+    public long toUnscaled(T value) {
+        return toUnscaled(value, false);
+    }
+
+    /**
+     * @param exact Throw instead of saturating, for the ends of the range.
+     * @throws IllegalArgumentException if exact is set and the value does not fit in a fixed-point long.
+     */
+    private long toUnscaled(T value, boolean exact) {
+        if (numberType.isIntegral()) {
+            return value.longValue();
+        }
+        if (numberType == NumberType.BIG_DECIMAL) {
+            final BigDecimal scaled = ((BigDecimal) value).setScale(decimalScale, RoundingMode.HALF_UP)
+                    .scaleByPowerOfTen(decimalScale);
+            try {
+                return scaled.longValueExact();
+            } catch (ArithmeticException e) {
+                if (exact) {
+                    throw outOfFixedPoint(value);
+                }
+                return scaled.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+            }
+        }
+        final double scaled = value.doubleValue() * unscaledFactor;
+        if (exact && !(Math.abs(scaled) < TWO_POW_63)) {
+            throw outOfFixedPoint(value);
+        }
+        return Math.round(scaled);
+    }
+
+    private IllegalArgumentException outOfFixedPoint(T value) {
+        return new IllegalArgumentException("The range end " + value + " does not fit in a long with " + decimalScale
+                + " decimal places");
+    }
+
+    /**
+     * Converts an unsigned long to a double.
+     */
+    private static double unsignedToDouble(long value) {
+        if (value >= 0) {
+            return value;
+        }
+        // halve it with the lowest bit kept for rounding, then double it again
+        return ((value >>> 1) | (value & 1L)) * 2d;
+    }
+
+    /**
+     * Converts a non-negative double below 2^64 to an unsigned long, truncating the fraction.
+     */
+    private static long doubleToUnsigned(double value) {
+        if (value < TWO_POW_63) {
+            return (long) value;
+        }
+        return (long) (value - TWO_POW_63) + Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,66 @@
+package com.guesthouser.ghrangeseekbar;
+
+/**
+ * Precomputed, monotone lookup table of a {@link ValueScale} for one absolute range. It holds the values at evenly
+ * spaced normalized positions and interpolates linearly in between, so normalized to value is O(1) and value to
+ * normalized is a binary search, without any {@code Math.log}/{@code Math.pow} per conversion.
+ */
+public final class ScaleTable {
+
+    private final double[] values;
+    private final int last;
+
+    /**
+     * @param values The values at the normalized positions {@code i / (values.length - 1)}. Must be non-decreasing and
+     *               hold at least two entries; the array is not copied.
+     */
+    ScaleTable(double[] values) {
+        this.values = values;
+        this.last = values.length - 1;
+    }
+
+    /**
+     * Converts a normalized position to a value.
+     */
+    public double toValue(double normalized) {
+        if (normalized <= 0d) {
+            return values[0];
+        }
+        if (normalized >= 1d) {
+            return values[last];
+        }
+        final double position = normalized * last;
+        final int index = (int) position;
+        return values[index] + (position - index) * (values[index + 1] - values[index]);
+    }
+
+    /**
+     * Converts a value to a normalized position, clamped to [0, 1].
+     */
+    public double toNormalized(double value) {
+        if (value <= values[0]) {
+            return 0d;
+        }
+        if (value >= values[last]) {
+            return 1d;
+        }
+        // values[low] <= value < values[high]
+        int low = 0;
+        int high = last;
+        while (high - low > 1) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        final double span = values[high] - values[low];
+        final double fraction = span == 0d ? 0d : (value - values[low]) / span;
+        return (low + fraction) / last;
+    }
+
+    public int size() {
+        return values.length;
+    }
+}
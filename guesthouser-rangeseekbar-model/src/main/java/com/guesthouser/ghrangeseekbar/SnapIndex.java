@@ -0,0 +1,294 @@
+package com.guesthouser.ghrangeseekbar;
+
+import java.util.Arrays;
+
+/**
+ * Sorted table of the values a GHRangeSeekBar in DISCRETE mode snaps to.
+ * <p/>
+ * Stops are kept in a primitive array so the nearest stop can be found with a binary search and without unboxing.
+ * Tables built by {@link #decadeSteps(long, long)} additionally answer {@link #nearest(long)} arithmetically in O(1)
+ * for values >= 0, and are only built on first use, so a range that never snaps never pays for its table.
+ * <p/>
+ * All arithmetic saturates instead of overflowing: powers of ten stop at 10^18 and rounded range ends at +-9 * 10^18,
+ * so any long range yields a table of at most about 1,200 stops.
+ */
+public final class SnapIndex {
+
+    // largest power of ten and largest value with a single leading digit that fit a long
+    private static final long MAX_POW10 = 1000000000000000000L;
+    private static final long MAX_ROUNDED = 9 * MAX_POW10;
+
+    // the range of a decade table, built into stops on first use
+    private final long min, max;
+    private final boolean decadeSteps;
+    private volatile long[] stops;
+
+    private SnapIndex(long[] stops) {
+        this.stops = stops;
+        this.min = stops[0];
+        this.max = stops[stops.length - 1];
+        this.decadeSteps = false;
+    }
+
+    private SnapIndex(long min, long max) {
+        this.min = min;
+        this.max = max;
+        this.decadeSteps = true;
+    }
+
+    /**
+     * Builds the stepped stops used by the seek bar, e.g. 500, 550, ... 1000, 1100, ... 2000, 2200, ... 50000.
+     * Within every decade the step is a tenth of the decade up to 2x, a fifth up to 4x and a half above that. Negative
+     * stops mirror the positive ones. The stops are computed on first use.
+     *
+     * @param min The absolute minimum of the range. Rounded down to its leading digit.
+     * @param max The absolute maximum of the range. Rounded up to its leading digit.
+     * @return The snap table.
+     */
+    public static SnapIndex decadeSteps(long min, long max) {
+        return new SnapIndex(min, max);
+    }
+
+    /**
+     * Builds a snap table from arbitrary stops. The values are copied, sorted and de-duplicated.
+     *
+     * @param values The stops, in any order. Must not be empty.
+     * @return The snap table.
+     */
+    public static SnapIndex of(long... values) {
+        if (values == null || values.length == 0) {
+            throw new IllegalArgumentException("A snap table needs at least one stop");
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return new SnapIndex(size == sorted.length ? sorted : Arrays.copyOf(sorted, size));
+    }
+
+    /**
+     * Returns this table with every stop multiplied by the given factor, e.g. to turn stops in values into fixed-point
+     * units. Stops saturate at the long range.
+     *
+     * @param factor The factor, at least 1.
+     */
+    public SnapIndex scaled(long factor) {
+        if (factor == 1L) {
+            return this;
+        }
+        final long[] stops = stops();
+        final long[] scaled = new long[stops.length];
+        for (int i = 0; i < stops.length; i++) {
+            final long stop = stops[i];
+            scaled[i] = stop > Long.MAX_VALUE / factor ? Long.MAX_VALUE
+                    : stop < Long.MIN_VALUE / factor ? Long.MIN_VALUE : stop * factor;
+        }
+        return of(scaled);
+    }
+
+    /**
+     * Returns this table converted from fixed-point units with {@code fromScale} decimal places to units with
+     * {@code toScale} places, e.g. stops in cents to stops in whole values. Dropped places are rounded half away from
+     * zero, and stops that round to the same value are merged. Stops saturate at the long range.
+     *
+     * @param fromScale The decimal places of this table, at least 0.
+     * @param toScale   The decimal places of the result, at least 0.
+     */
+    public SnapIndex rescaled(int fromScale, int toScale) {
+        if (fromScale < 0 || toScale < 0) {
+            throw new IllegalArgumentException("Decimal scales must not be negative");
+        }
+        if (toScale >= fromScale) {
+            return scaled(pow10(toScale - fromScale));
+        }
+        final long divisor = pow10(fromScale - toScale);
+        final long[] stops = stops();
+        final long[] rounded = new long[stops.length];
+        for (int i = 0; i < stops.length; i++) {
+            final long quotient = stops[i] / divisor;
+            final long remainder = stops[i] % divisor;
+            // |remainder| < divisor <= 10^18, so doubling it cannot overflow
+            rounded[i] = Math.abs(remainder) * 2 >= divisor ? quotient + Long.signum(remainder) : quotient;
+        }
+        return of(rounded);
+    }
+
+    /**
+     * Rounds the given minimum down to its leading digit, e.g. 523 to 500 and -523 to -600. Values from 0 to 9 are
+     * returned unchanged.
+     */
+    public static long getMinRange(long min) {
+        if (min < 0)
+            return -getMaxRange(min == Long.MIN_VALUE ? Long.MAX_VALUE : -min);
+        if (min < 10)
+            return min;
+        long roundTo = pow10(decimalLength(min) - 1);
+        return (min / roundTo) * roundTo;
+    }
+
+    /**
+     * Rounds the given maximum up to its leading digit, e.g. 52000 to 60000 and -52000 to -50000. Saturates at
+     * 9 * 10^18.
+     */
+    public static long getMaxRange(long max) {
+        if (max < 0)
+            return -getMinRange(max == Long.MIN_VALUE ? Long.MAX_VALUE : -max);
+        long roundTo = pow10(decimalLength(max) - 1);
+        long quotient = max / roundTo;
+        if (max % roundTo != 0)
+            quotient++;
+        return quotient > MAX_ROUNDED / roundTo ? MAX_ROUNDED : quotient * roundTo;
+    }
+
+    public int size() {
+        return stops().length;
+    }
+
+    public long get(int index) {
+        return stops()[index];
+    }
+
+    public long first() {
+        return stops()[0];
+    }
+
+    public long last() {
+        final long[] stops = stops();
+        return stops[stops.length - 1];
+    }
+
+    /**
+     * Returns the stop closest to the given value. Ties are resolved towards the lower stop.
+     *
+     * @param value The value to snap.
+     * @return The closest stop.
+     */
+    public long nearest(long value) {
+        final long[] stops = stops();
+        final long first = stops[0];
+        final long last = stops[stops.length - 1];
+        if (value <= first)
+            return first;
+        if (value >= last)
+            return last;
+
+        long lower, upper;
+        if (decadeSteps && value >= 0) {
+            // the stops >= 0 of a decade table are the multiples of the step of their decade
+            final long step = stepAt(value);
+            lower = value - value % step;
+            upper = lower + step;
+        } else {
+            int index = Arrays.binarySearch(stops, value);
+            if (index >= 0)
+                return value;
+            index = -(index + 1);
+            lower = stops[index - 1];
+            upper = stops[index];
+        }
+        return isCloserToLower(lower, value, upper) ? lower : upper;
+    }
+
+    /**
+     * Returns the smallest stop >= the given value, or the last stop if there is none.
+     */
+    public long ceiling(long value) {
+        final long[] stops = stops();
+        final int index = Arrays.binarySearch(stops, value);
+        if (index >= 0)
+            return value;
+        return stops[Math.min(-(index + 1), stops.length - 1)];
+    }
+
+    /**
+     * Returns the largest stop <= the given value, or the first stop if there is none.
+     */
+    public long floor(long value) {
+        final long[] stops = stops();
+        final int index = Arrays.binarySearch(stops, value);
+        if (index >= 0)
+            return value;
+        return stops[Math.max(-(index + 1) - 1, 0)];
+    }
+
+    /**
+     * Returns true if value is at least as close to lower as to upper, for {@code lower <= value <= upper}. The
+     * distances are compared as unsigned longs, as they may exceed {@link Long#MAX_VALUE}.
+     */
+    static boolean isCloserToLower(long lower, long value, long upper) {
+        return ((value - lower) ^ Long.MIN_VALUE) <= ((upper - value) ^ Long.MIN_VALUE);
+    }
+
+    private long[] stops() {
+        long[] stops = this.stops;
+        if (stops == null) {
+            // racing threads build equal tables, so no lock is needed
+            this.stops = stops = buildDecadeSteps(min, max);
+        }
+        return stops;
+    }
+
+    private static long[] buildDecadeSteps(long min, long max) {
+        final long first = getMinRange(min);
+        final long last = Math.max(first, getMaxRange(max));
+
+        // count first so the table is allocated exactly once; next < i means the step overflowed
+        int count = 1;
+        for (long i = first, next = i + stepAt(i); next <= last && next > i; i = next, next = i + stepAt(i)) {
+            count++;
+        }
+
+        final long[] stops = new long[count];
+        stops[0] = first;
+        for (int n = 1; n < count; n++) {
+            stops[n] = stops[n - 1] + stepAt(stops[n - 1]);
+        }
+        return stops;
+    }
+
+    /**
+     * Returns the step between the stop at the given value and the next one.
+     */
+    private static long stepAt(long value) {
+        if (value < 0)
+            // mirrors the positive stops: the step up from -v is the step up to v
+            return stepAt(-(value + 1));
+        long stepMin = pow10(decimalLength(value) - 1);
+        if (stepMin <= 1)
+            return 1;
+        else if (value >= stepMin && value < stepMin * 2)
+            return stepMin / 10;
+        else if (value >= stepMin * 2 && value < stepMin * 4)
+            return (stepMin / 10) * 2;
+        else
+            return (stepMin / 10) * 5;
+    }
+
+    /**
+     * Number of characters in the decimal representation of the value, sign included.
+     */
+    private static int decimalLength(long value) {
+        int length = value < 0 ? 2 : 1;
+        long v = value < 0 ? -(value / 10) : value / 10;
+        while (v > 0) {
+            length++;
+            v /= 10;
+        }
+        return length;
+    }
+
+    /**
+     * Returns 10^exponent, saturated at 10^18.
+     */
+    static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent && result < MAX_POW10; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,156 @@
+package com.guesthouser.ghrangeseekbar;
+
+import java.util.Arrays;
+
+/**
+ * Values kept in a sorted primitive array to count how many fall into a range, e.g. the listings inside the selected
+ * prices of a seek bar. A count is two binary searches, O(log n), so it can run on every notification of a drag.
+ * Single inserts and removals shift the array, O(n); use {@link #addAll(double[])} for batches.
+ * <p/>
+ * Not thread-safe; update the index on the thread that queries it.
+ */
+public final class SortedValueIndex {
+
+    private double[] values;
+    private int size;
+
+    public SortedValueIndex() {
+        this.values = new double[16];
+    }
+
+    /**
+     * @param values The initial values, in any order. Copied.
+     */
+    public SortedValueIndex(double[] values) {
+        this.values = values.length == 0 ? new double[16] : values.clone();
+        this.size = values.length;
+        Arrays.sort(this.values, 0, size);
+        dropNaN();
+    }
+
+    /**
+     * @param values The initial values, in any order.
+     */
+    public SortedValueIndex(long[] values) {
+        this.values = new double[Math.max(16, values.length)];
+        for (int i = 0; i < values.length; i++) {
+            this.values[i] = values[i];
+        }
+        this.size = values.length;
+        Arrays.sort(this.values, 0, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of values v with {@code min <= v <= max}.
+     */
+    public int count(double min, double max) {
+        if (min > max) {
+            return 0;
+        }
+        return upperBound(max) - lowerBound(min);
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        final int index = upperBound(value);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    /**
+     * Adds the given values in one merge pass, O(n + m log m).
+     *
+     * @param added The values to add, in any order. Not modified.
+     */
+    public void addAll(double[] added) {
+        final double[] sorted = added.clone();
+        Arrays.sort(sorted);
+        int addedSize = sorted.length;
+        // NaN sorts last
+        while (addedSize > 0 && Double.isNaN(sorted[addedSize - 1])) {
+            addedSize--;
+        }
+        final double[] merged = new double[Math.max(16, size + addedSize)];
+        int i = 0, j = 0, n = 0;
+        while (i < size && j < addedSize) {
+            merged[n++] = values[i] <= sorted[j] ? values[i++] : sorted[j++];
+        }
+        while (i < size) {
+            merged[n++] = values[i++];
+        }
+        while (j < addedSize) {
+            merged[n++] = sorted[j++];
+        }
+        values = merged;
+        size = n;
+    }
+
+    /**
+     * Removes one occurrence of the given value.
+     *
+     * @return true if the value was present.
+     */
+    public boolean remove(double value) {
+        final int index = lowerBound(value);
+        if (index == size || values[index] != value) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the index of the first value >= the given one.
+     */
+    private int lowerBound(double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the first value > the given one.
+     */
+    private int upperBound(double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void dropNaN() {
+        while (size > 0 && Double.isNaN(values[size - 1])) {
+            size--;
+        }
+    }
+}
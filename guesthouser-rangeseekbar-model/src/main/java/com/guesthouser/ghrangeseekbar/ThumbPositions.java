@@ -0,0 +1,108 @@
+package com.guesthouser.ghrangeseekbar;
+
+import java.util.Arrays;
+
+/**
+ * Normalized positions of the thumbs of a multi-thumb bar, kept in a sorted primitive array. Thumbs never pass each
+ * other: a moved thumb is clamped between its neighbours, so thumb i always lies left of or on thumb i + 1. Finding the
+ * thumb under a touch is a binary search, O(log n), and nothing allocates after construction.
+ * <p/>
+ * Not thread-safe; use it on the thread that draws the bar.
+ */
+public final class ThumbPositions {
+
+    private final double[] positions;
+
+    /**
+     * @param count The number of thumbs, spread evenly over the bar.
+     */
+    public ThumbPositions(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one thumb is needed");
+        }
+        positions = new double[count];
+        spread();
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    public double get(int thumb) {
+        return positions[thumb];
+    }
+
+    /**
+     * Moves a thumb to the given position, clamped to [0, 1] and between its neighbours.
+     *
+     * @return The position the thumb ended up at.
+     */
+    public double move(int thumb, double position) {
+        final double lower = thumb == 0 ? 0d : positions[thumb - 1];
+        final double upper = thumb == positions.length - 1 ? 1d : positions[thumb + 1];
+        positions[thumb] = Math.max(lower, Math.min(upper, position));
+        return positions[thumb];
+    }
+
+    /**
+     * Sets all positions at once. They are sorted into place, so the caller may pass them in any order.
+     *
+     * @param positions One normalized position per thumb. Values outside [0, 1] are clamped.
+     */
+    public void setAll(double[] positions) {
+        if (positions.length != this.positions.length) {
+            throw new IllegalArgumentException("Expected " + this.positions.length + " positions, got " + positions.length);
+        }
+        for (int i = 0; i < positions.length; i++) {
+            this.positions[i] = Math.max(0d, Math.min(1d, positions[i]));
+        }
+        Arrays.sort(this.positions);
+    }
+
+    /**
+     * Spreads the thumbs evenly from 0 to 1; a single thumb goes to 0.
+     */
+    public void spread() {
+        final int last = positions.length - 1;
+        for (int i = 0; i <= last; i++) {
+            positions[i] = last == 0 ? 0d : (double) i / last;
+        }
+    }
+
+    /**
+     * Returns the thumb under the given position, or -1 if none is within the radius. If several thumbs are, e.g.
+     * because they lie on top of each other, the one with more room to drag is chosen, so stacked thumbs never get
+     * stuck: the leftmost of them on the right half of the bar, the rightmost on the left half.
+     *
+     * @param position The normalized touch position.
+     * @param radius   Half the thumb width, normalized.
+     */
+    public int hitTest(double position, double radius) {
+        final int first = lowerBound(position - radius);
+        if (first == positions.length || positions[first] > position + radius) {
+            return -1;
+        }
+        if (position > 0.5d) {
+            return first;
+        }
+        // last thumb within the radius
+        return lowerBound(Math.nextUp(position + radius)) - 1;
+    }
+
+    /**
+     * Returns the index of the first thumb at or right of the given position, or {@link #size()} if there is none.
+     */
+    public int lowerBound(double position) {
+        int low = 0;
+        int high = positions.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (positions[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
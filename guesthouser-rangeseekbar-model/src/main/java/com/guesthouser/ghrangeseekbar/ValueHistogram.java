@@ -0,0 +1,210 @@
+package com.guesthouser.ghrangeseekbar;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Number of values per slice of a seek bar, e.g. listings per price band for the histogram overlay. The bins split the
+ * bar into equal slices along the scale of the given {@link RangeState}, so a LOG bar gets narrower value bands at the
+ * lower end; in DISCRETE mode each value is counted at its nearest stop. Values outside the absolute range are ignored.
+ * <p/>
+ * Large arrays can be binned on a {@link ForkJoinPool}: the array is split until the parts are small enough, each part
+ * is binned into its own counts and the counts are added up on the way back. Later values can be added or removed one
+ * by one. Building is not thread-safe with respect to other updates of the same histogram.
+ * <p/>
+ * On Android, {@link ForkJoinPool} needs API 21.
+ */
+public final class ValueHistogram {
+
+    /**
+     * Parts of at most this many values are binned on a single worker.
+     */
+    public static final int SEQUENTIAL_THRESHOLD = 1 << 14;
+
+    private final RangeState<?> state;
+    // lower value of each bin for non-linear scales, so binning is a short search instead of a table lookup
+    private final double[] edges;
+    private final long[] counts;
+    private long total;
+
+    /**
+     * @param state    The range, scale and value type to bin against. Rebuild the histogram when it changes.
+     * @param binCount The number of bins.
+     */
+    public ValueHistogram(RangeState<?> state, int binCount) {
+        if (binCount < 1) {
+            throw new IllegalArgumentException("At least one bin is needed");
+        }
+        this.state = state;
+        this.counts = new long[binCount];
+        if (state.scaleTable != null) {
+            edges = new double[binCount];
+            for (int i = 0; i < binCount; i++) {
+                edges[i] = state.scaleTable.toValue((double) i / binCount);
+            }
+        } else {
+            edges = null;
+        }
+    }
+
+    /**
+     * Returns the bin the given value falls into, or -1 if it lies outside the absolute range.
+     */
+    public int binOf(double value) {
+        if (!(value >= state.absoluteMinValuePrim && value <= state.absoluteMaxValuePrim)) {
+            return -1;
+        }
+        long stop = 0L;
+        if (state.discrete) {
+            stop = state.snapUnscaled(state.valueToUnscaled(value));
+            value = state.unscaledToPrim(stop);
+        }
+        if (edges == null) {
+            // stops normalize exactly, so one on a bin edge falls into the upper bin
+            final double normalized = state.discrete ? state.unscaledToNormalized(stop) : state.valueToNormalized(value);
+            final int bin = (int) (normalized * counts.length);
+            return Math.max(0, Math.min(counts.length - 1, bin));
+        }
+        // last bin whose lower edge is <= value
+        int low = 0;
+        int high = edges.length - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (edges[mid] <= value) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    public void add(double value) {
+        final int bin = binOf(value);
+        if (bin >= 0) {
+            counts[bin]++;
+            total++;
+        }
+    }
+
+    /**
+     * Removes a value added before. Removing a value that was never added corrupts the counts.
+     */
+    public void remove(double value) {
+        final int bin = binOf(value);
+        if (bin >= 0) {
+            counts[bin]--;
+            total--;
+        }
+    }
+
+    public void addAll(double[] values) {
+        merge(binRange(values, null, 0, values.length));
+    }
+
+    public void addAll(long[] values) {
+        merge(binRange(null, values, 0, values.length));
+    }
+
+    /**
+     * Bins the values in parallel on the given pool.
+     */
+    public void addAll(double[] values, ForkJoinPool pool) {
+        merge(pool.invoke(new BinTask(values, null, 0, values.length)));
+    }
+
+    /**
+     * Bins the values in parallel on the given pool.
+     */
+    public void addAll(long[] values, ForkJoinPool pool) {
+        merge(pool.invoke(new BinTask(null, values, 0, values.length)));
+    }
+
+    public int binCount() {
+        return counts.length;
+    }
+
+    public long count(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * Number of values in all bins.
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Returns the counts as bin heights for the histogram overlay of the seek bar.
+     */
+    public float[] toBins() {
+        final float[] bins = new float[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            bins[i] = counts[i];
+        }
+        return bins;
+    }
+
+    private void merge(long[] partial) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += partial[i];
+            total += partial[i];
+        }
+    }
+
+    /**
+     * Bins the values in [from, to) of whichever array is not null into new counts.
+     */
+    private long[] binRange(double[] doubles, long[] longs, int from, int to) {
+        final long[] partial = new long[counts.length];
+        if (doubles != null) {
+            for (int i = from; i < to; i++) {
+                final int bin = binOf(doubles[i]);
+                if (bin >= 0) {
+                    partial[bin]++;
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                final int bin = binOf(longs[i]);
+                if (bin >= 0) {
+                    partial[bin]++;
+                }
+            }
+        }
+        return partial;
+    }
+
+    private final class BinTask extends RecursiveTask<long[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] doubles;
+        private final long[] longs;
+        private final int from, to;
+
+        BinTask(double[] doubles, long[] longs, int from, int to) {
+            this.doubles = doubles;
+            this.longs = longs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return binRange(doubles, longs, from, to);
+            }
+            final int mid = (from + to) >>> 1;
+            final BinTask left = new BinTask(doubles, longs, from, mid);
+            left.fork();
+            final long[] right = new BinTask(doubles, longs, mid, to).compute();
+            final long[] partial = left.join();
+            for (int i = 0; i < partial.length; i++) {
+                partial[i] += right[i];
+            }
+            return partial;
+        }
+    }
+}
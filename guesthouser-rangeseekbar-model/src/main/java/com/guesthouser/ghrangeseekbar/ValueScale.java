@@ -0,0 +1,125 @@
+package com.guesthouser.ghrangeseekbar;
+
+import java.util.Arrays;
+
+/**
+ * Maps thumb positions to values. {@link #LINEAR} spreads the range evenly over the bar; the other scales give more
+ * room to part of the range, e.g. {@link #LOG} for skewed price ranges. Non-linear scales are evaluated through a
+ * {@link ScaleTable} that is built once per absolute range.
+ */
+public abstract class ValueScale {
+
+    /**
+     * Number of entries of the lookup tables built by the scales.
+     */
+    public static final int TABLE_SIZE = 1025;
+
+    /**
+     * Evenly spread values. Converted arithmetically, without a table.
+     */
+    public static final ValueScale LINEAR = new ValueScale() {
+        @Override
+        public ScaleTable createTable(double absoluteMin, double absoluteMax) {
+            return null;
+        }
+    };
+
+    /**
+     * Logarithmic values: every step along the bar multiplies the value by the same factor. Ranges that start at or
+     * below zero are shifted so that the minimum maps to 1.
+     */
+    public static final ValueScale LOG = new ValueScale() {
+        @Override
+        public ScaleTable createTable(double absoluteMin, double absoluteMax) {
+            final double offset = absoluteMin > 0d ? 0d : 1d - absoluteMin;
+            final double logMin = Math.log(absoluteMin + offset);
+            final double logMax = Math.log(absoluteMax + offset);
+            final double[] values = new double[TABLE_SIZE];
+            for (int i = 0; i < TABLE_SIZE; i++) {
+                values[i] = Math.exp(logMin + (logMax - logMin) * i / (TABLE_SIZE - 1)) - offset;
+            }
+            values[0] = absoluteMin;
+            values[TABLE_SIZE - 1] = absoluteMax;
+            return new ScaleTable(values);
+        }
+    };
+
+    /**
+     * Builds the lookup table of this scale for the given absolute range.
+     *
+     * @return The table, or null if the scale is linear.
+     */
+    public abstract ScaleTable createTable(double absoluteMin, double absoluteMax);
+
+    /**
+     * Piecewise-linear scale through the given points, e.g. positions {0, 0.5, 1} and fractions {0, 0.1, 1} put the
+     * lowest tenth of the range on the first half of the bar.
+     *
+     * @param positions Normalized thumb positions, strictly increasing from 0 to 1.
+     * @param fractions The fraction of the range at each position, non-decreasing from 0 to 1.
+     */
+    public static ValueScale piecewise(double[] positions, double[] fractions) {
+        if (positions.length < 2 || positions.length != fractions.length) {
+            throw new IllegalArgumentException("A piecewise scale needs at least two points with one fraction each");
+        }
+        if (positions[0] != 0d || positions[positions.length - 1] != 1d
+                || fractions[0] != 0d || fractions[fractions.length - 1] != 1d) {
+            throw new IllegalArgumentException("A piecewise scale has to run from (0, 0) to (1, 1)");
+        }
+        for (int i = 1; i < positions.length; i++) {
+            if (positions[i] <= positions[i - 1] || fractions[i] < fractions[i - 1]) {
+                throw new IllegalArgumentException("A piecewise scale has to be monotone");
+            }
+        }
+        final double[] x = positions.clone();
+        final double[] y = fractions.clone();
+        return new ValueScale() {
+            @Override
+            public ScaleTable createTable(double absoluteMin, double absoluteMax) {
+                final double[] values = new double[TABLE_SIZE];
+                int segment = 0;
+                for (int i = 0; i < TABLE_SIZE; i++) {
+                    final double position = (double) i / (TABLE_SIZE - 1);
+                    while (segment < x.length - 2 && position > x[segment + 1]) {
+                        segment++;
+                    }
+                    final double t = (position - x[segment]) / (x[segment + 1] - x[segment]);
+                    final double fraction = y[segment] + t * (y[segment + 1] - y[segment]);
+                    values[i] = absoluteMin + fraction * (absoluteMax - absoluteMin);
+                }
+                return new ScaleTable(values);
+            }
+        };
+    }
+
+    /**
+     * Scale that follows the distribution of the given values: each part of the bar covers the same share of them,
+     * e.g. the middle of the bar is the median. Values outside the absolute range are clamped to it.
+     *
+     * @param observed The observed values, in any order. Copied.
+     */
+    public static ValueScale quantiles(double[] observed) {
+        if (observed.length == 0) {
+            throw new IllegalArgumentException("A quantile scale needs at least one value");
+        }
+        final double[] sorted = observed.clone();
+        Arrays.sort(sorted);
+        return new ValueScale() {
+            @Override
+            public ScaleTable createTable(double absoluteMin, double absoluteMax) {
+                final double[] values = new double[TABLE_SIZE];
+                final int last = sorted.length - 1;
+                for (int i = 0; i < TABLE_SIZE; i++) {
+                    final double rank = (double) i * last / (TABLE_SIZE - 1);
+                    final int index = (int) rank;
+                    final double value = index >= last ? sorted[last]
+                            : sorted[index] + (rank - index) * (sorted[index + 1] - sorted[index]);
+                    values[i] = Math.max(absoluteMin, Math.min(absoluteMax, value));
+                }
+                values[0] = absoluteMin;
+                values[TABLE_SIZE - 1] = absoluteMax;
+                return new ScaleTable(values);
+            }
+        };
+    }
+}
@@ -0,0 +1,142 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuantileSketchTest {
+
+    private static final int VALUES = 200000;
+
+    @Test
+    public void empty() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+        assertEquals(0, sketch.count());
+        assertTrue(Double.isNaN(sketch.quantile(0.5d)));
+    }
+
+    @Test
+    public void smallInput_isExact() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.addAll(new long[]{5, 1, 4, 2, 3});
+        assertEquals(5, sketch.count());
+        assertEquals(5, sketch.retained());
+        assertEquals(1d, sketch.quantile(0d), 0d);
+        assertEquals(3d, sketch.quantile(0.5d), 0d);
+        assertEquals(5d, sketch.quantile(1d), 0d);
+    }
+
+    @Test
+    public void ignoresNaN() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(Double.NaN);
+        sketch.add(1d);
+        assertEquals(1, sketch.count());
+    }
+
+    @Test
+    public void rankError_staysWithinBound() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+        double[] values = shuffledValues(new Random(42));
+        sketch.addAll(values);
+        assertEquals(VALUES, sketch.count());
+        // bounded memory: around 3k values retained
+        assertTrue("retained " + sketch.retained(), sketch.retained() < 4 * QuantileSketch.DEFAULT_K);
+        assertRankError(sketch);
+    }
+
+    @Test
+    public void merge_matchesOneSketch() throws Exception {
+        double[] values = shuffledValues(new Random(7));
+        QuantileSketch left = new QuantileSketch();
+        QuantileSketch right = new QuantileSketch();
+        left.addAll(Arrays.copyOfRange(values, 0, VALUES / 2));
+        right.addAll(Arrays.copyOfRange(values, VALUES / 2, VALUES));
+        left.merge(right);
+        assertEquals(VALUES, left.count());
+        assertEquals(VALUES / 2, right.count());
+        assertEquals(0d, left.min(), 0d);
+        assertEquals(VALUES - 1, left.max(), 0d);
+        assertRankError(left);
+    }
+
+    @Test
+    public void snapStops_spanObservedValues() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.addAll(shuffledValues(new Random(1)));
+        SnapIndex stops = sketch.snapStops(11);
+        assertEquals(11, stops.size());
+        assertEquals(0, stops.first());
+        assertEquals(VALUES - 1, stops.last());
+    }
+
+    @Test
+    public void snapStops_areDeterministic() throws Exception {
+        double[] values = shuffledValues(new Random(5));
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        first.addAll(values);
+        second.addAll(values);
+        SnapIndex a = first.snapStops(21);
+        SnapIndex b = second.snapStops(21);
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.get(i), b.get(i));
+        }
+    }
+
+    @Test
+    public void snapStops_mergeDuplicates() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.addAll(new long[]{1, 1, 1, 1, 2});
+        assertEquals(2, sketch.snapStops(5).size());
+    }
+
+    @Test
+    public void snapStops_keepDecimalPlaces() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.addAll(new double[]{0.1d, 0.25d, 0.3d, 0.45d, 0.5d});
+        SnapIndex stops = sketch.snapStops(5, 2);
+        assertEquals(5, stops.size());
+        assertEquals(10, stops.first());
+        assertEquals(30, stops.get(2));
+        assertEquals(50, stops.last());
+        // whole numbers collapse them
+        assertEquals(2, sketch.snapStops(5).size());
+        RangeState<Double> state = RangeState.create(0d, 1d).withSnapIndex(stops, 2);
+        assertEquals(0.45d, state.unscaledToPrim(state.snapUnscaled(40)), 0d);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void snapStops_needValues() throws Exception {
+        new QuantileSketch().snapStops(3);
+    }
+
+    private static double[] shuffledValues(Random random) {
+        double[] values = new double[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = i;
+        }
+        for (int i = VALUES - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+
+    /**
+     * The values are 0 .. VALUES - 1, so a value is its own rank.
+     */
+    private static void assertRankError(QuantileSketch sketch) {
+        double bound = 3.4d / QuantileSketch.DEFAULT_K;
+        for (double fraction = 0.05d; fraction < 1d; fraction += 0.05d) {
+            double rank = sketch.quantile(fraction) / VALUES;
+            assertEquals("quantile " + fraction, fraction, rank, bound);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RangeStateTest {
+
+    @Test
+    public void create_selectsWholeRange() throws Exception {
+        RangeState<Integer> state = RangeState.create(100, 200);
+        assertEquals(NumberType.INTEGER, state.numberType);
+        assertFalse(state.discrete);
+        assertEquals(0d, state.selectedMinNormalized, 0d);
+        assertEquals(1d, state.selectedMaxNormalized, 0d);
+        assertEquals(100, state.normalizedToUnscaled(0d));
+        assertEquals(200, state.normalizedToUnscaled(1d));
+    }
+
+    @Test
+    public void integralValues_roundTrip() throws Exception {
+        RangeState<Integer> state = RangeState.create(-50, 950);
+        for (int value = -50; value <= 950; value++) {
+            assertEquals(value, state.normalizedToUnscaled(state.valueToNormalized(value)));
+        }
+    }
+
+    @Test
+    public void decimalValues_roundTripWithoutFloatNoise() throws Exception {
+        RangeState<Double> state = RangeState.create(0d, 10d);
+        assertEquals(100, state.unscaledFactor);
+        for (int unscaled = 0; unscaled <= 1000; unscaled++) {
+            double value = state.unscaledToPrim(unscaled);
+            assertEquals(unscaled, state.normalizedToUnscaled(state.valueToNormalized(value)));
+        }
+        assertEquals(0.3d, state.unscaledToNumber(30).doubleValue(), 0d);
+    }
+
+    @Test
+    public void decimalScale_changesUnits() throws Exception {
+        RangeState<Double> state = RangeState.create(0d, 1d).withDecimalScale(4);
+        assertEquals(10000, state.unscaledFactor);
+        assertEquals(10000, state.absoluteMaxUnscaled);
+        assertEquals(1234, state.valueToUnscaled(0.12341d));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decimalScale_rejectsTooManyPlaces() throws Exception {
+        RangeState.create(0d, 1d).withDecimalScale(RangeState.MAX_DECIMAL_SCALE + 1);
+    }
+
+    @Test
+    public void bigDecimal_isExact() throws Exception {
+        RangeState<BigDecimal> state = RangeState.create(new BigDecimal("0.10"), new BigDecimal("0.30"));
+        assertEquals(new BigDecimal("0.20"), state.unscaledToNumber(state.normalizedToUnscaled(0.5d)));
+    }
+
+    @Test
+    public void longEnds_stayExactBeyondDoublePrecision() throws Exception {
+        long min = (1L << 60) + 1;
+        long max = (1L << 60) + 3;
+        RangeState<Long> state = RangeState.create(min, max);
+        assertEquals(min, state.normalizedToUnscaled(0d));
+        assertEquals(max, state.normalizedToUnscaled(1d));
+    }
+
+    @Test
+    public void longValues_roundTripBeyondDoublePrecision() throws Exception {
+        long min = 1L << 60;
+        RangeState<Long> state = RangeState.create(min, min + 10000000000000L);
+        Random random = new Random(3);
+        for (int i = 0; i < 10000; i++) {
+            long value = min + (random.nextLong() >>> 1) % 10000000000000L;
+            assertEquals(value, state.normalizedToUnscaled(state.unscaledToNormalized(state.toUnscaled(value))));
+        }
+        assertEquals(min + 1, state.normalizedToUnscaled(state.unscaledToNormalized(min + 1)));
+    }
+
+    @Test
+    public void wholeLongRange_mapsMonotonicallyIntoRange() throws Exception {
+        assertMonotonic(RangeState.create(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertMonotonic(RangeState.create(-5000000000000000000L, 5000000000000000000L));
+        RangeState<Long> state = RangeState.create(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(0L, state.normalizedToUnscaled(0.5d), 2048);
+        assertEquals(0.5d, state.unscaledToNormalized(0L), 1e-15);
+        assertEquals(0.25d, state.unscaledToNormalized(Long.MIN_VALUE / 2), 1e-15);
+    }
+
+    private static void assertMonotonic(RangeState<Long> state) {
+        long previous = state.absoluteMinUnscaled;
+        for (int i = 0; i <= 1000; i++) {
+            final long value = state.normalizedToUnscaled(i / 1000d);
+            assertTrue("at " + i, value >= previous && value <= state.absoluteMaxUnscaled);
+            previous = value;
+        }
+        assertEquals(state.absoluteMaxUnscaled, previous);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bigDecimalEnds_mustFitInFixedPoint() throws Exception {
+        RangeState.create(BigDecimal.ZERO, new BigDecimal("100000000000000000"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void doubleEnds_mustFitInFixedPoint() throws Exception {
+        RangeState.create(0d, 1e15d).withDecimalScale(4);
+    }
+
+    @Test
+    public void valuesBeyondFixedPoint_saturate() throws Exception {
+        RangeState<BigDecimal> state = RangeState.create(BigDecimal.ZERO, BigDecimal.TEN);
+        assertEquals(Long.MAX_VALUE, state.toUnscaled(new BigDecimal("1e30")));
+        assertEquals(Long.MIN_VALUE, state.toUnscaled(new BigDecimal("-1e30")));
+        assertEquals(1000, state.toUnscaled(BigDecimal.TEN));
+    }
+
+    @Test(timeout = 1000)
+    public void wholeLongRange_isCheapToCreate() throws Exception {
+        for (int i = 0; i < 10000; i++) {
+            RangeState.create(Long.MIN_VALUE, Long.MAX_VALUE).withRange(Long.MIN_VALUE + i, Long.MAX_VALUE);
+        }
+    }
+
+    @Test
+    public void selection_bumpsOnlyItsStamp() throws Exception {
+        RangeState<Integer> state = RangeState.create(0, 100);
+        RangeState<Integer> min = state.withSelectedMin(0.25d);
+        assertEquals(state.minSelectionStamp + 1, min.minSelectionStamp);
+        assertEquals(state.maxSelectionStamp, min.maxSelectionStamp);
+        RangeState<Integer> ranged = min.withRange(0, 1000);
+        assertEquals(min.minSelectionStamp, ranged.minSelectionStamp);
+        assertEquals(0.25d, ranged.selectedMinNormalized, 0d);
+    }
+
+    @Test
+    public void customSnapIndex_survivesRangeChange() throws Exception {
+        SnapIndex custom = SnapIndex.of(0, 10, 100);
+        RangeState<Integer> state = RangeState.create(0, 100).withSnapIndex(custom).withRange(0, 200);
+        assertTrue(state.customSnapIndex);
+        assertSame(custom, state.snapIndex);
+        RangeState<Integer> derived = state.withSnapIndex(null);
+        assertFalse(derived.customSnapIndex);
+    }
+
+    @Test
+    public void customSnapIndex_isScaledForDecimalRanges() throws Exception {
+        RangeState<Double> state = RangeState.create(0d, 10d).withSnapIndex(SnapIndex.of(0, 5, 10));
+        assertEquals(500, state.snapUnscaled(260));
+        assertEquals(1000, state.snapIndex.last());
+        assertEquals(10000, state.withDecimalScale(3).snapIndex.last());
+        assertEquals(5d, state.unscaledToPrim(state.nearestStop(0.45d)), 0d);
+    }
+
+    @Test
+    public void decimalSnapIndex_keepsDecimalPlaces() throws Exception {
+        RangeState<Double> state = RangeState.create(0d, 1d).withSnapIndex(SnapIndex.of(0, 25, 50, 100), 2);
+        assertEquals(4, state.snapIndex.size());
+        assertEquals(0.25d, state.unscaledToPrim(state.snapUnscaled(20)), 0d);
+        assertEquals(250, state.withDecimalScale(3).snapIndex.get(1));
+        // fewer places round half away from zero, and merge stops
+        assertEquals(3, state.withDecimalScale(1).snapIndex.get(1));
+        SnapIndex integral = RangeState.create(0, 1).withSnapIndex(SnapIndex.of(0, 25, 50, 100), 2).snapIndex;
+        assertEquals(2, integral.size());
+        assertEquals(1, integral.get(1));
+    }
+
+    @Test
+    public void discrete_smallDecimalRangeSnapsWithinRange() throws Exception {
+        RangeState<Double> state = RangeState.create(0.1d, 0.3d).withDiscrete(true);
+        assertTrue(state.snapIndex.size() > 2);
+        for (double normalized = 0d; normalized <= 1d; normalized += 0.01d) {
+            double value = state.unscaledToPrim(state.nearestStop(normalized));
+            assertTrue("value " + value, value >= 0.1d && value <= 0.3d);
+        }
+        assertEquals(0.1d, state.unscaledToPrim(state.nearestStop(0d)), 0d);
+        assertEquals(0.3d, state.unscaledToPrim(state.nearestStop(1d)), 0d);
+        assertEquals(0.2d, state.unscaledToPrim(state.nearestStop(0.5d)), 0d);
+        assertEquals(0.11d, state.unscaledToPrim(state.nearestStop(0.05d)), 0d);
+    }
+
+    @Test
+    public void discrete_negativeDecimalRangeSnapsWithinRange() throws Exception {
+        RangeState<Double> state = RangeState.create(-10.5d, 10.5d).withDiscrete(true);
+        assertEquals(-10.5d, state.unscaledToPrim(state.nearestStop(0d)), 0d);
+        assertEquals(10.5d, state.unscaledToPrim(state.nearestStop(1d)), 0d);
+        assertEquals(0d, state.unscaledToPrim(state.nearestStop(0.5d)), 0d);
+        // 10.0 and -10.0 are stops, the ends are closer
+        assertEquals(-10.5d, state.unscaledToPrim(state.snapUnscaled(-1030)), 0d);
+        assertEquals(-10d, state.unscaledToPrim(state.snapUnscaled(-1020)), 0d);
+        assertEquals(-9.5d, state.unscaledToPrim(state.snapUnscaled(-960)), 0d);
+        assertEquals(5d, state.unscaledToPrim(state.snapUnscaled(510)), 0d);
+    }
+
+    @Test
+    public void discrete_rangeEndsCountAsStops() throws Exception {
+        RangeState<Integer> state = RangeState.create(523, 52000).withDiscrete(true);
+        assertEquals(500, state.snapIndex.first());
+        assertEquals(523, state.nearestStop(0d));
+        assertEquals(52000, state.nearestStop(1d));
+        assertEquals(523, state.snapUnscaled(530));
+        assertEquals(550, state.snapUnscaled(540));
+        assertEquals(50000, state.snapUnscaled(50900));
+        assertEquals(52000, state.snapUnscaled(51100));
+    }
+
+    @Test
+    public void discrete_noStopInsideRange() throws Exception {
+        RangeState<Integer> state = RangeState.create(0, 100).withSnapIndex(SnapIndex.of(-50, 500));
+        assertEquals(0, state.snapUnscaled(50));
+        assertEquals(100, state.snapUnscaled(51));
+    }
+
+    @Test
+    public void logScale_convertsThroughTable() throws Exception {
+        RangeState<Integer> state = RangeState.create(1, 10000).withScale(ValueScale.LOG);
+        assertNotNull(state.scaleTable);
+        assertEquals(100, state.normalizedToUnscaled(0.5d), 1);
+        assertEquals(0.5d, state.valueToNormalized(100), 1e-3);
+        assertNull(state.withScale(ValueScale.LINEAR).scaleTable);
+    }
+
+    @Test
+    public void emptyRange_normalizesToZero() throws Exception {
+        RangeState<Integer> state = RangeState.create(5, 5);
+        assertTrue(state.isEmpty());
+        assertEquals(0d, state.valueToNormalized(5), 0d);
+    }
+
+    @Test
+    public void screenConversions() throws Exception {
+        assertEquals(10f, RangeState.normalizedToScreen(0d, 100, 10f), 0f);
+        assertEquals(90f, RangeState.normalizedToScreen(1d, 100, 10f), 0f);
+        assertEquals(0.5d, RangeState.screenToNormalized(50f, 100, 10f), 1e-9);
+        assertEquals(0d, RangeState.screenToNormalized(-5f, 100, 10f), 0d);
+        assertEquals(1d, RangeState.screenToNormalized(500f, 100, 10f), 0d);
+        assertEquals(0d, RangeState.screenToNormalized(50f, 20, 10f), 0d);
+    }
+}
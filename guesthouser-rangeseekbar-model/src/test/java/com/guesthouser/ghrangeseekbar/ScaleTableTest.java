@@ -0,0 +1,85 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScaleTableTest {
+
+    @Test
+    public void linear_hasNoTable() throws Exception {
+        assertNull(ValueScale.LINEAR.createTable(0d, 100d));
+    }
+
+    @Test
+    public void log_hitsEndsExactly() throws Exception {
+        ScaleTable table = ValueScale.LOG.createTable(10d, 100000d);
+        assertEquals(ValueScale.TABLE_SIZE, table.size());
+        assertEquals(10d, table.toValue(0d), 0d);
+        assertEquals(100000d, table.toValue(1d), 0d);
+        assertEquals(1000d, table.toValue(0.5d), 1e-6);
+    }
+
+    @Test
+    public void log_shiftsRangesStartingAtZero() throws Exception {
+        ScaleTable table = ValueScale.LOG.createTable(0d, 99d);
+        assertEquals(0d, table.toValue(0d), 0d);
+        // shifted to 1..100, so the middle is 10 - 1
+        assertEquals(9d, table.toValue(0.5d), 1e-6);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        ScaleTable table = ValueScale.LOG.createTable(1d, 1000000d);
+        for (double normalized = 0d; normalized <= 1d; normalized += 1d / 333) {
+            assertEquals(normalized, table.toNormalized(table.toValue(normalized)), 1e-9);
+        }
+    }
+
+    @Test
+    public void toNormalized_clamps() throws Exception {
+        ScaleTable table = ValueScale.LOG.createTable(1d, 1000d);
+        assertEquals(0d, table.toNormalized(-5d), 0d);
+        assertEquals(1d, table.toNormalized(5000d), 0d);
+    }
+
+    @Test
+    public void piecewise_followsPoints() throws Exception {
+        ValueScale scale = ValueScale.piecewise(new double[]{0d, 0.5d, 1d}, new double[]{0d, 0.1d, 1d});
+        ScaleTable table = scale.createTable(0d, 1000d);
+        assertEquals(100d, table.toValue(0.5d), 1e-9);
+        assertEquals(50d, table.toValue(0.25d), 1e-9);
+        assertEquals(0.75d, table.toNormalized(550d), 1e-9);
+    }
+
+    @Test
+    public void piecewise_flatSegmentMapsToItsEnd() throws Exception {
+        ScaleTable flat = ValueScale.piecewise(new double[]{0d, 0.25d, 0.75d, 1d},
+                new double[]{0d, 0.5d, 0.5d, 1d}).createTable(0d, 100d);
+        assertEquals(50d, flat.toValue(0.5d), 1e-9);
+        assertEquals(0.75d, flat.toNormalized(50d), 1d / (ValueScale.TABLE_SIZE - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void piecewise_rejectsNonMonotonePoints() throws Exception {
+        ValueScale.piecewise(new double[]{0d, 0.6d, 0.4d, 1d}, new double[]{0d, 0.2d, 0.4d, 1d});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void piecewise_rejectsOpenEnds() throws Exception {
+        ValueScale.piecewise(new double[]{0d, 1d}, new double[]{0d, 0.9d});
+    }
+
+    @Test
+    public void quantiles_putMedianInTheMiddle() throws Exception {
+        double[] observed = new double[1001];
+        for (int i = 0; i < observed.length; i++) {
+            // skewed: most values are small
+            observed[i] = (double) i * i / 1000;
+        }
+        ScaleTable table = ValueScale.quantiles(observed).createTable(0d, 1000d);
+        assertEquals(250d, table.toValue(0.5d), 1d);
+        assertEquals(0d, table.toValue(0d), 0d);
+        assertEquals(1000d, table.toValue(1d), 0d);
+    }
+}
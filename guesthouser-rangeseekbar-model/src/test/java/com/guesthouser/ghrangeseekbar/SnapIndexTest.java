@@ -0,0 +1,171 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SnapIndexTest {
+
+    @Test
+    public void decadeSteps_followDecades() throws Exception {
+        SnapIndex index = SnapIndex.decadeSteps(523, 52000);
+        assertEquals(500, index.first());
+        assertEquals(60000, index.last());
+        assertEquals(550, index.get(1));
+        // a tenth of the decade up to 2x, a fifth up to 4x, a half above
+        assertStep(index, 1000, 100);
+        assertStep(index, 2000, 200);
+        assertStep(index, 4000, 500);
+        assertStep(index, 10000, 1000);
+    }
+
+    @Test
+    public void decadeSteps_smallRange() throws Exception {
+        SnapIndex index = SnapIndex.decadeSteps(0, 9);
+        assertEquals(10, index.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, index.get(i));
+        }
+    }
+
+    @Test
+    public void nearest_clampsToEdges() throws Exception {
+        SnapIndex index = SnapIndex.decadeSteps(500, 5000);
+        assertEquals(500, index.nearest(-1000));
+        assertEquals(500, index.nearest(500));
+        assertEquals(5000, index.nearest(5000));
+        assertEquals(5000, index.nearest(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void nearest_tiesGoToLowerStop() throws Exception {
+        SnapIndex index = SnapIndex.decadeSteps(500, 5000);
+        assertEquals(500, index.nearest(525));
+        assertEquals(550, index.nearest(526));
+        assertEquals(1000, index.nearest(1050));
+        assertEquals(2000, index.nearest(2100));
+    }
+
+    @Test
+    public void nearest_arithmeticMatchesBinarySearch() throws Exception {
+        SnapIndex decades = SnapIndex.decadeSteps(500, 50000);
+        long[] stops = new long[decades.size()];
+        for (int i = 0; i < stops.length; i++) {
+            stops[i] = decades.get(i);
+        }
+        SnapIndex table = SnapIndex.of(stops);
+        for (long value = 0; value <= 60000; value += 7) {
+            assertEquals("value " + value, table.nearest(value), decades.nearest(value));
+        }
+    }
+
+    @Test
+    public void decadeSteps_negativeStopsMirrorPositiveOnes() throws Exception {
+        SnapIndex index = SnapIndex.decadeSteps(-5200, 5200);
+        assertEquals(-6000, index.first());
+        assertEquals(6000, index.last());
+        int zero = -1;
+        for (int i = 0; i < index.size(); i++) {
+            if (index.get(i) == 0) {
+                zero = i;
+            }
+        }
+        assertTrue(zero > 0);
+        assertEquals(index.size() - 1, 2 * zero);
+        for (int i = 1; i <= zero; i++) {
+            assertEquals(-index.get(zero + i), index.get(zero - i));
+        }
+        assertEquals(-950, index.nearest(-960));
+        assertEquals(-1100, index.nearest(-1060));
+    }
+
+    @Test(timeout = 1000)
+    public void decadeSteps_wholeLongRange() throws Exception {
+        SnapIndex index = SnapIndex.decadeSteps(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertTrue("size " + index.size(), index.size() < 1300);
+        assertEquals(-9000000000000000000L, index.first());
+        assertEquals(9000000000000000000L, index.last());
+        for (int i = 1; i < index.size(); i++) {
+            assertTrue(index.get(i) > index.get(i - 1));
+        }
+        assertEquals(0, index.nearest(0));
+        assertEquals(index.last(), index.nearest(Long.MAX_VALUE));
+        assertEquals(index.first(), index.nearest(Long.MIN_VALUE));
+    }
+
+    @Test(timeout = 1000)
+    public void decadeSteps_upToLongMax() throws Exception {
+        SnapIndex index = SnapIndex.decadeSteps(0, Long.MAX_VALUE);
+        assertTrue(index.size() > 500);
+        assertEquals(0, index.first());
+        assertEquals(9000000000000000000L, index.last());
+        assertEquals(8500000000000000000L, index.nearest(8700000000000000000L));
+        assertEquals(1200, index.nearest(1234));
+        assertEquals(1300, index.nearest(1260));
+    }
+
+    @Test
+    public void decadeSteps_mixedSignsMatchBinarySearch() throws Exception {
+        SnapIndex decades = SnapIndex.decadeSteps(-3000, 3000);
+        long[] stops = new long[decades.size()];
+        for (int i = 0; i < stops.length; i++) {
+            stops[i] = decades.get(i);
+        }
+        SnapIndex table = SnapIndex.of(stops);
+        for (long value = -3500; value <= 3500; value += 3) {
+            assertEquals("value " + value, table.nearest(value), decades.nearest(value));
+        }
+    }
+
+    @Test
+    public void nearest_farApartStops() throws Exception {
+        SnapIndex index = SnapIndex.of(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, index.nearest(1));
+        assertEquals(Long.MIN_VALUE, index.nearest(-1));
+    }
+
+    @Test
+    public void rangeRounding_saturates() throws Exception {
+        assertEquals(9000000000000000000L, SnapIndex.getMaxRange(Long.MAX_VALUE));
+        assertEquals(-9000000000000000000L, SnapIndex.getMinRange(Long.MIN_VALUE));
+        assertEquals(1000000000000000000L, SnapIndex.pow10(19));
+        assertEquals(-600, SnapIndex.getMinRange(-523));
+        assertEquals(-50000, SnapIndex.getMaxRange(-52000));
+        assertEquals(-7, SnapIndex.getMaxRange(-7));
+    }
+
+    @Test
+    public void of_sortsAndDeduplicates() throws Exception {
+        SnapIndex index = SnapIndex.of(30, 10, 20, 10, 30);
+        assertEquals(3, index.size());
+        assertEquals(10, index.first());
+        assertEquals(20, index.get(1));
+        assertEquals(30, index.last());
+        assertEquals(20, index.nearest(24));
+        assertEquals(20, index.nearest(25));
+        assertEquals(30, index.nearest(26));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void of_rejectsEmptyTable() throws Exception {
+        SnapIndex.of();
+    }
+
+    @Test
+    public void rangeRounding() throws Exception {
+        assertEquals(500, SnapIndex.getMinRange(523));
+        assertEquals(7, SnapIndex.getMinRange(7));
+        assertEquals(60000, SnapIndex.getMaxRange(52000));
+        assertEquals(50000, SnapIndex.getMaxRange(50000));
+    }
+
+    private static void assertStep(SnapIndex index, long stop, long step) {
+        for (int i = 0; i < index.size() - 1; i++) {
+            if (index.get(i) == stop) {
+                assertEquals("step after " + stop, stop + step, index.get(i + 1));
+                return;
+            }
+        }
+        fail("no stop at " + stop);
+    }
+}
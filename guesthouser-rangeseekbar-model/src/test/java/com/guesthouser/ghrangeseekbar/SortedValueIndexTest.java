@@ -0,0 +1,62 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SortedValueIndexTest {
+
+    @Test
+    public void count_includesBothEnds() throws Exception {
+        SortedValueIndex index = new SortedValueIndex(new long[]{30, 10, 20, 20, 40});
+        assertEquals(5, index.size());
+        assertEquals(3, index.count(20, 30));
+        assertEquals(5, index.count(10, 40));
+        assertEquals(0, index.count(41, 100));
+        assertEquals(0, index.count(30, 20));
+    }
+
+    @Test
+    public void dropsNaN() throws Exception {
+        SortedValueIndex index = new SortedValueIndex(new double[]{Double.NaN, 1d, 2d});
+        assertEquals(2, index.size());
+        index.add(Double.NaN);
+        index.addAll(new double[]{Double.NaN, 3d});
+        assertEquals(3, index.size());
+        assertEquals(3, index.count(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void addAndRemove() throws Exception {
+        SortedValueIndex index = new SortedValueIndex();
+        for (int i = 0; i < 100; i++) {
+            index.add(i % 10);
+        }
+        assertEquals(100, index.size());
+        assertEquals(10, index.count(3, 3));
+        assertTrue(index.remove(3));
+        assertFalse(index.remove(3.5d));
+        assertEquals(9, index.count(3, 3));
+        index.clear();
+        assertEquals(0, index.count(0, 10));
+    }
+
+    @Test
+    public void addAll_matchesSingleAdds() throws Exception {
+        Random random = new Random(3);
+        SortedValueIndex batch = new SortedValueIndex(new double[]{50d, 5d});
+        SortedValueIndex single = new SortedValueIndex(new double[]{50d, 5d});
+        double[] added = new double[1000];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = random.nextInt(100);
+            single.add(added[i]);
+        }
+        batch.addAll(added);
+        assertEquals(single.size(), batch.size());
+        for (int min = 0; min < 100; min += 7) {
+            assertEquals(single.count(min, min + 13), batch.count(min, min + 13));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ThumbPositionsTest {
+
+    @Test
+    public void spreadsEvenly() throws Exception {
+        ThumbPositions positions = new ThumbPositions(5);
+        assertEquals(5, positions.size());
+        assertEquals(0d, positions.get(0), 0d);
+        assertEquals(0.25d, positions.get(1), 0d);
+        assertEquals(1d, positions.get(4), 0d);
+        assertEquals(0d, new ThumbPositions(1).get(0), 0d);
+    }
+
+    @Test
+    public void move_clampsBetweenNeighbours() throws Exception {
+        ThumbPositions positions = new ThumbPositions(3);
+        assertEquals(0.5d, positions.move(0, 0.9d), 0d);
+        assertEquals(0.5d, positions.move(2, 0.1d), 0d);
+        assertEquals(0.5d, positions.get(1), 0d);
+        assertEquals(1d, positions.move(2, 7d), 0d);
+    }
+
+    @Test
+    public void setAll_sortsAndClamps() throws Exception {
+        ThumbPositions positions = new ThumbPositions(3);
+        positions.setAll(new double[]{0.7d, -1d, 0.2d});
+        assertEquals(0d, positions.get(0), 0d);
+        assertEquals(0.2d, positions.get(1), 0d);
+        assertEquals(0.7d, positions.get(2), 0d);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setAll_rejectsWrongCount() throws Exception {
+        new ThumbPositions(3).setAll(new double[2]);
+    }
+
+    @Test
+    public void hitTest_findsThumbWithinRadius() throws Exception {
+        ThumbPositions positions = new ThumbPositions(5);
+        assertEquals(1, positions.hitTest(0.26d, 0.02d));
+        assertEquals(3, positions.hitTest(0.74d, 0.02d));
+        assertEquals(-1, positions.hitTest(0.4d, 0.02d));
+        assertEquals(4, positions.hitTest(1d, 0.02d));
+    }
+
+    @Test
+    public void hitTest_stackedThumbsPreferRoomToDrag() throws Exception {
+        ThumbPositions positions = new ThumbPositions(3);
+        positions.setAll(new double[]{0.6d, 0.6d, 0.6d});
+        // right half: the leftmost can move left
+        assertEquals(0, positions.hitTest(0.61d, 0.02d));
+        positions.setAll(new double[]{0.3d, 0.3d, 0.3d});
+        // left half: the rightmost can move right
+        assertEquals(2, positions.hitTest(0.31d, 0.02d));
+    }
+
+    @Test
+    public void hitTest_tieBetweenNeighboursOnRadiusEdges() throws Exception {
+        ThumbPositions positions = new ThumbPositions(2);
+        positions.setAll(new double[]{0.2d, 0.24d});
+        // both thumbs exactly within the radius
+        assertEquals(1, positions.hitTest(0.22d, 0.02d));
+        positions.setAll(new double[]{0.76d, 0.8d});
+        assertEquals(0, positions.hitTest(0.78d, 0.02d));
+    }
+
+    @Test
+    public void lowerBound() throws Exception {
+        ThumbPositions positions = new ThumbPositions(3);
+        assertEquals(0, positions.lowerBound(-1d));
+        assertEquals(1, positions.lowerBound(0.5d));
+        assertEquals(2, positions.lowerBound(0.6d));
+        assertEquals(3, positions.lowerBound(1.5d));
+    }
+}
@@ -0,0 +1,90 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ValueHistogramTest {
+
+    @Test
+    public void linearBins() throws Exception {
+        ValueHistogram histogram = new ValueHistogram(RangeState.create(0, 100), 4);
+        assertEquals(0, histogram.binOf(0));
+        assertEquals(0, histogram.binOf(24));
+        assertEquals(1, histogram.binOf(25));
+        assertEquals(3, histogram.binOf(100));
+        assertEquals(-1, histogram.binOf(-1));
+        assertEquals(-1, histogram.binOf(101));
+        assertEquals(-1, histogram.binOf(Double.NaN));
+    }
+
+    @Test
+    public void logBins_narrowAtLowerEnd() throws Exception {
+        ValueHistogram histogram = new ValueHistogram(RangeState.create(1, 10000).withScale(ValueScale.LOG), 4);
+        assertEquals(0, histogram.binOf(9));
+        assertEquals(1, histogram.binOf(11));
+        assertEquals(2, histogram.binOf(101));
+        assertEquals(3, histogram.binOf(1001));
+    }
+
+    @Test
+    public void discreteBins_countDecimalValuesAtTheirStop() throws Exception {
+        RangeState<Double> state = RangeState.create(0.1d, 0.3d);
+        ValueHistogram linear = new ValueHistogram(state, 4);
+        ValueHistogram discrete = new ValueHistogram(state.withDiscrete(true), 4);
+        // 0.149 snaps up to the stop 0.15, 0.253 down to 0.24
+        assertEquals(0, linear.binOf(0.149d));
+        assertEquals(1, discrete.binOf(0.149d));
+        assertEquals(3, linear.binOf(0.253d));
+        assertEquals(2, discrete.binOf(0.253d));
+        assertEquals(-1, discrete.binOf(0.31d));
+    }
+
+    @Test
+    public void addAndRemove() throws Exception {
+        ValueHistogram histogram = new ValueHistogram(RangeState.create(0, 100), 2);
+        histogram.add(10);
+        histogram.add(90);
+        histogram.add(200);
+        assertEquals(2, histogram.total());
+        histogram.remove(10);
+        assertEquals(0, histogram.count(0));
+        assertEquals(1, histogram.count(1));
+        assertArrayEquals(new float[]{0f, 1f}, histogram.toBins(), 0f);
+    }
+
+    @Test
+    public void parallel_matchesSequential() throws Exception {
+        RangeState<Integer> state = RangeState.create(0, 1000000).withScale(ValueScale.LOG);
+        Random random = new Random(11);
+        long[] longs = new long[5 * ValueHistogram.SEQUENTIAL_THRESHOLD + 123];
+        double[] doubles = new double[longs.length];
+        for (int i = 0; i < longs.length; i++) {
+            longs[i] = random.nextInt(1100000) - 50000;
+            doubles[i] = longs[i] + random.nextDouble();
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertParity(state, longs, doubles, pool);
+            assertParity(state.withScale(ValueScale.LINEAR), longs, doubles, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertParity(RangeState<Integer> state, long[] longs, double[] doubles, ForkJoinPool pool) {
+        ValueHistogram sequential = new ValueHistogram(state, 64);
+        ValueHistogram parallel = new ValueHistogram(state, 64);
+        sequential.addAll(longs);
+        sequential.addAll(doubles);
+        parallel.addAll(longs, pool);
+        parallel.addAll(doubles, pool);
+        assertEquals(sequential.total(), parallel.total());
+        for (int bin = 0; bin < sequential.binCount(); bin++) {
+            assertEquals("bin " + bin, sequential.count(bin), parallel.count(bin));
+        }
+    }
+}
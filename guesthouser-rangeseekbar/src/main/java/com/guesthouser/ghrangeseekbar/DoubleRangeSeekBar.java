@@ -0,0 +1,88 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.content.Context;
+import android.util.AttributeSet;
+
+/**
+ * {@link GHRangeSeekBar} for double ranges. Values are read, set and delivered to {@link OnRangeChangeListener} as
+ * primitives, so no Double objects are created while the user drags a thumb.
+ */
+public class DoubleRangeSeekBar extends GHRangeSeekBar<Double> {
+
+    private OnRangeChangeListener rangeListener;
+
+    public DoubleRangeSeekBar(Context context) {
+        this(context, null);
+    }
+
+    public DoubleRangeSeekBar(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public DoubleRangeSeekBar(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+        setRangeValues(DEFAULT_MINIMUM.doubleValue(), DEFAULT_MAXIMUM.doubleValue());
+    }
+
+    public void setRangeValues(double minValue, double maxValue) {
+        super.setRangeValues(Double.valueOf(minValue), Double.valueOf(maxValue));
+    }
+
+    /**
+     * Returns the currently selected min value for the current value type.
+     */
+    public double getSelectedMin() {
+        return getSelectedMinPrim();
+    }
+
+    /**
+     * Returns the currently selected max value for the current value type.
+     */
+    public double getSelectedMax() {
+        return getSelectedMaxPrim();
+    }
+
+    /**
+     * Sets the currently selected minimum value. The widget will be invalidated and redrawn.
+     *
+     * @param value The value to set the minimum value to. Will be clamped to given absolute minimum/maximum range.
+     */
+    public void setSelectedMin(double value) {
+        setSelectedMinPrim(value);
+    }
+
+    /**
+     * Sets the currently selected maximum value. The widget will be invalidated and redrawn.
+     *
+     * @param value The value to set the maximum value to. Will be clamped to given absolute minimum/maximum range.
+     */
+    public void setSelectedMax(double value) {
+        setSelectedMaxPrim(value);
+    }
+
+    /**
+     * Registers given listener callback to notify about changed selected values. It is called in addition to a
+     * listener registered through {@link #setOnRangeSeekBarChangeListener(OnRangeSeekBarChangeListener)}.
+     *
+     * @param listener The listener to notify about changed selected values.
+     */
+    public void setOnRangeChangeListener(OnRangeChangeListener listener) {
+        this.rangeListener = listener;
+    }
+
+    @Override
+    protected void dispatchValuesChanged() {
+        super.dispatchValuesChanged();
+        if (rangeListener != null) {
+            rangeListener.onRangeSeekBarValuesChanged(this, getSelectedMin(), getSelectedMax());
+        }
+    }
+
+    /**
+     * Callback listener interface to notify about changed range values without boxing them.
+     */
+    public interface OnRangeChangeListener {
+
+        void onRangeSeekBarValuesChanged(DoubleRangeSeekBar bar, double minValue, double maxValue);
+    }
+}
@@ -0,0 +1,204 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.view.Choreographer;
+
+/**
+ * Performance counters of one drag session on a {@link GHRangeSeekBar}, from the ACTION_DOWN on a thumb to ACTION_UP or
+ * ACTION_CANCEL: touch events and the time spent handling them, draws and their time, invalidations, listener
+ * notifications and the time spent in listeners, and the frames rendered meanwhile. Frames are timed with
+ * {@link Choreographer} callbacks; a frame that arrives more than one and a half refresh periods after the previous one
+ * counts as janky, and every refresh period it missed as dropped.
+ * <p/>
+ * One instance is allocated when a sink is set through {@link GHRangeSeekBar#setDragMetricsSink(Sink)} and reset for
+ * every session, so collecting does not allocate. Without a sink the bar collects nothing.
+ */
+public final class DragMetrics implements Choreographer.FrameCallback {
+
+    /**
+     * Receives the metrics of every finished drag session, on the UI thread.
+     */
+    public interface Sink {
+
+        /**
+         * @param metrics The metrics of the session. The instance is reused for the next session, so copy the values
+         *                to keep them.
+         */
+        void onDragSessionFinished(GHRangeSeekBar<?> bar, DragMetrics metrics);
+    }
+
+    private final GHRangeSeekBar<?> bar;
+    private final Sink sink;
+
+    private boolean active;
+    private long startNanos, durationNanos;
+    private int eventCount;
+    private long touchNanos;
+    private int drawCount;
+    private long drawNanos;
+    private int invalidationCount;
+    private int notificationCount;
+    private long listenerNanos;
+    private long refreshPeriodNanos;
+    private long lastFrameNanos;
+    private int frameCount, jankyFrameCount, droppedFrameCount;
+
+    DragMetrics(GHRangeSeekBar<?> bar, Sink sink) {
+        this.bar = bar;
+        this.sink = sink;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Resets all counters and starts timing frames. A session that is still active is restarted.
+     */
+    void start(long refreshPeriodNanos) {
+        // an unfinished session still has its frame callback posted; posting it again would count every frame twice
+        final boolean framesTimed = active;
+        active = true;
+        startNanos = System.nanoTime();
+        durationNanos = 0;
+        eventCount = 0;
+        touchNanos = 0;
+        drawCount = 0;
+        drawNanos = 0;
+        invalidationCount = 0;
+        notificationCount = 0;
+        listenerNanos = 0;
+        this.refreshPeriodNanos = refreshPeriodNanos;
+        lastFrameNanos = 0;
+        frameCount = 0;
+        jankyFrameCount = 0;
+        droppedFrameCount = 0;
+        if (!framesTimed) {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void addTouchEvent(long nanos) {
+        eventCount++;
+        touchNanos += nanos;
+    }
+
+    void addDraw(long nanos) {
+        drawCount++;
+        drawNanos += nanos;
+    }
+
+    void addInvalidation() {
+        invalidationCount++;
+    }
+
+    void addNotification(long listenerNanos) {
+        notificationCount++;
+        this.listenerNanos += listenerNanos;
+    }
+
+    /**
+     * Stops timing frames and hands the counters to the sink.
+     */
+    void finish() {
+        active = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        durationNanos = System.nanoTime() - startNanos;
+        sink.onDragSessionFinished(bar, this);
+    }
+
+    /**
+     * Stops timing frames without reporting, e.g. when the bar is detached in the middle of a drag.
+     */
+    void abort() {
+        active = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!active) {
+            return;
+        }
+        if (lastFrameNanos != 0) {
+            frameCount++;
+            final long interval = frameTimeNanos - lastFrameNanos;
+            if (interval * 2 > refreshPeriodNanos * 3) {
+                jankyFrameCount++;
+                droppedFrameCount += (int) (interval / refreshPeriodNanos) - 1;
+            }
+        }
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Duration of the session in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Time spent in {@link GHRangeSeekBar#onTouchEvent}, in nanoseconds, including the listeners notified from there.
+     */
+    public long getTouchNanos() {
+        return touchNanos;
+    }
+
+    public int getDrawCount() {
+        return drawCount;
+    }
+
+    public long getDrawNanos() {
+        return drawNanos;
+    }
+
+    public int getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Number of times the listeners were notified.
+     */
+    public int getNotificationCount() {
+        return notificationCount;
+    }
+
+    /**
+     * Time spent in the listeners, in nanoseconds. Listeners on an executor only count the time to hand the values over.
+     */
+    public long getListenerNanos() {
+        return listenerNanos;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getJankyFrameCount() {
+        return jankyFrameCount;
+    }
+
+    public int getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
+    @Override
+    public String toString() {
+        return "DragMetrics{durationNanos=" + durationNanos
+                + ", events=" + eventCount
+                + ", touchNanos=" + touchNanos
+                + ", draws=" + drawCount
+                + ", drawNanos=" + drawNanos
+                + ", invalidations=" + invalidationCount
+                + ", notifications=" + notificationCount
+                + ", listenerNanos=" + listenerNanos
+                + ", frames=" + frameCount
+                + ", jankyFrames=" + jankyFrameCount
+                + ", droppedFrames=" + droppedFrameCount + "}";
+    }
+}
@@ -1,21 +1,28 @@
 package com.guesthouser.ghrangeseekbar;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Looper;
 import android.os.Parcelable;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
+import android.view.Choreographer;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.ViewConfiguration;
 import android.widget.ImageView;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by GuestHouser on 7/20/16.
@@ -44,22 +51,54 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
     public static final Integer DEFAULT_MAXIMUM = 100;
     public static final int HEIGHT_IN_DP = 30;
     private static final int INITIAL_PADDING_IN_DP = 0;//original 8
+    // a flung thumb travels as far as it would in this time at its release speed
+    private static final double FLING_TIME_CONSTANT_SECONDS = 0.2d;
+    private static final long MAX_FLING_DURATION_NANOS = 600000000L;
     private int lineHeight = 20;
     private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    private Bitmap thumbImage = BitmapFactory.decodeResource(getResources(), R.drawable.ic_thumb);
-    private float thumbWidth = thumbImage.getWidth();
-    private float thumbHalfWidth = 0.5f * thumbWidth;
-    private float thumbHalfHeight = 0.5f * thumbImage.getHeight();
+    // loaded lazily, so a thumb set through setThumbImage never decodes the default one
+    private Bitmap thumbImage;
+    // source the thumb is loaded from at thumbSize: a drawable if set, else a resource, unless a bitmap has been set
+    private boolean thumbBitmapSet;
+    private Drawable thumbDrawable;
+    private int thumbResId = R.drawable.ic_thumb;
+    // height the thumb is drawn at in pixels, 0 for its natural size
+    private int thumbSize;
+    private float thumbWidth;
+    private float thumbHalfWidth;
+    private float thumbHalfHeight;
     private float INITIAL_PADDING;
     private float padding;
-    private T absoluteMinValue, absoluteMaxValue;
-    private NumberType numberType;
-    private double absoluteMinValuePrim, absoluteMaxValuePrim;
+    // range as published by the setters, replaced atomically from any thread
+    private final AtomicReference<RangeState<T>> publishedState = new AtomicReference<>();
+    // range the UI thread currently works with, see syncState()
+    private RangeState<T> state;
     private double normalizedMinValue = 0d;
     private double normalizedMaxValue = 1d;
+    // stops of the thumbs in DISCRETE mode, fixed-point like RangeState.absoluteMinUnscaled
+    private long snappedMinValue, snappedMaxValue;
+    // last values handed to the listener, reused as long as the selection does not change
+    private T notifiedMinValue, notifiedMaxValue;
+    private long notifiedMinUnscaled, notifiedMaxUnscaled;
     private Thumb pressedThumb = null;
     private boolean notifyWhileDragging = false;
+    private boolean notifyPerFrame = false;
+    private boolean notifyDistinctOnly = false;
+    private boolean frameNotifyPending;
+    private long dispatchedMinUnscaled, dispatchedMaxUnscaled;
+    private boolean hasDispatchedValues;
+    // delivers the coalesced notification of a frame
+    private final Choreographer.FrameCallback notifyFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameNotifyPending = false;
+            notifyValuesChanged();
+        }
+    };
     private OnRangeSeekBarChangeListener<T> listener;
+    private LatestRangeDispatcher<T, ?> asyncDispatcher;
+    private SortedValueIndex countIndex;
+    private OnRangeCountChangeListener countListener;
 
     private int lineHighlightedColor = 0xFF00BA8C;
     private int lineBgColor = 0xFFFFFFFF;
@@ -81,14 +120,50 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
 
     private boolean mIsDragging;
 
-    private RectF mRect;
+    // low-latency dragging: unbuffered input where supported and, with a prediction, a velocity over all samples
+    private boolean lowLatencyDragging;
+    private int dragPredictionMillis;
+    private VelocityTracker velocityTracker;
 
-    private ValueTypes mValueType = ValueTypes.LINEAR;
+    // thumb animation: programmatic changes glide when a duration is set, released thumbs fling when enabled
+    private final ThumbAnimator thumbAnimator = new ThumbAnimator();
+    private int animationDurationMillis;
+    private boolean flingEnabled;
+    private boolean notifyWhileAnimating;
+    private int mMinimumFlingVelocity;
 
-    /**
-     * valid points to be set in rangebar and filter
-     */
-    private ArrayList<Integer> rangeList = new ArrayList<>();
+    // null unless a metrics sink is set
+    private DragMetrics dragMetrics;
+
+    private RectF mRect;
+
+    // the histogram and tick lines are laid out again on the next draw
+    private boolean trackLinesDirty = true;
+
+    // distribution drawn behind the track: bin heights and one vertical line (x0, y0, x1, y1) per bin
+    private float[] histogramBins;
+    private float[] histogramLines;
+    private int histogramHeight;
+    private int histogramColor = 0x33000000;
+    private int histogramHighlightedColor = 0x6600BA8C;
+    private final Paint histogramPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    // tick marks at the snap stops and value labels below them
+    private boolean showTicks;
+    private boolean showTickLabels;
+    private int tickLength;
+    private int tickColor = 0x66000000;
+    private final Paint tickPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint tickLabelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private float[] tickLines;
+    private int tickCount;
+    private NumberFormat tickLabelFormat;
+    // labels with their positions and widths, built once per range, stops, format or locale, see ensureTickLabels()
+    private RangeState<T> tickLabelState;
+    private Locale tickLabelLocale;
+    private String[] tickLabels;
+    private float[] tickLabelWidths;
+    private double[] tickLabelPositions;
 
 
     public GHRangeSeekBar(Context context) {
@@ -106,8 +181,15 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
 
     private void init(Context context) {
         setRangeToDefaultValues();
-        setValuePrimAndNumberType();
         INITIAL_PADDING = dpToPx(context, INITIAL_PADDING_IN_DP);
+        paint.setStyle(Paint.Style.FILL);
+        histogramPaint.setStyle(Paint.Style.STROKE);
+        histogramPaint.setStrokeCap(Paint.Cap.BUTT);
+        tickLength = dpToPx(context, 6);
+        tickPaint.setStyle(Paint.Style.STROKE);
+        tickPaint.setStrokeWidth(Math.max(1, dpToPx(context, 1)));
+        tickLabelPaint.setTextSize(dpToPx(context, 11));
+        tickLabelPaint.setColor(0x99000000);
 
         mRect = new RectF(padding,
                 thumbHalfHeight - lineHeight / 2,
@@ -118,21 +200,137 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
         setFocusable(true);
         setFocusableInTouchMode(true);
         mScaledTouchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+        mMinimumFlingVelocity = ViewConfiguration.get(getContext()).getScaledMinimumFlingVelocity();
     }
 
     @SuppressWarnings("unchecked")
     // only used to set default values when initialised from XML without any values specified
     private void setRangeToDefaultValues() {
-        this.absoluteMinValue = (T) DEFAULT_MINIMUM;
-        this.absoluteMaxValue = (T) DEFAULT_MAXIMUM;
-        setValuePrimAndNumberType();
-        setRangeBarArrayList();
+        publishedState.set(RangeState.create((T) DEFAULT_MINIMUM, (T) DEFAULT_MAXIMUM));
+        syncState();
+    }
+
+    /**
+     * Adopts the latest published range state. Must be called on the UI thread; selections requested through the
+     * setters since the last call are applied, snapped and invalidated here.
+     */
+    private void syncState() {
+        final RangeState<T> next = publishedState.get();
+        final RangeState<T> previous = state;
+        if (next == previous) {
+            return;
+        }
+        state = next;
+        // work out the new selection from where a running animation was heading, then animate from what is shown
+        final double shownMinValue = normalizedMinValue;
+        final double shownMaxValue = normalizedMaxValue;
+        final boolean animating = thumbAnimator.running;
+        if (animating) {
+            normalizedMinValue = thumbAnimator.toMin;
+            normalizedMaxValue = thumbAnimator.toMax;
+        }
+        if (previous == null || previous.numberType != next.numberType || previous.decimalScale != next.decimalScale) {
+            notifiedMinValue = null;
+            notifiedMaxValue = null;
+        }
+        final boolean minChanged = previous == null || previous.minSelectionStamp != next.minSelectionStamp;
+        final boolean maxChanged = previous == null || previous.maxSelectionStamp != next.maxSelectionStamp;
+        if (previous != null && previous.scale != next.scale) {
+            // keep the selected values where they are when only the scale changes
+            if (!minChanged) {
+                normalizedMinValue = Math.max(0d, Math.min(1d, next.valueToNormalized(previous.normalizedToPrim(normalizedMinValue))));
+            }
+            if (!maxChanged) {
+                normalizedMaxValue = Math.max(0d, Math.min(1d, next.valueToNormalized(previous.normalizedToPrim(normalizedMaxValue))));
+            }
+        }
+        if (minChanged && maxChanged) {
+            // let both requested values through the clamping against each other
+            normalizedMinValue = 0d;
+            normalizedMaxValue = 1d;
+        }
+        if (minChanged) {
+            setNormalizedMinValue(next.selectedMinNormalized);
+        }
+        if (maxChanged) {
+            setNormalizedMaxValue(next.selectedMaxNormalized);
+        }
+        if (previous == null || previous.snapIndex != next.snapIndex || previous.discrete != next.discrete) {
+            snapToStops();
+        }
+        if ((showTicks || showTickLabels) && (previous == null || previous.scale != next.scale
+                || previous.snapIndex != next.snapIndex || previous.discrete != next.discrete
+                || previous.absoluteMinUnscaled != next.absoluteMinUnscaled
+                || previous.absoluteMaxUnscaled != next.absoluteMaxUnscaled || previous.decimalScale != next.decimalScale)) {
+            trackLinesDirty = true;
+        }
+        if (animating || (minChanged || maxChanged) && shouldAnimateChange(previous)) {
+            final long durationNanos = animationDurationMillis * 1000000L;
+            thumbAnimator.start(shownMinValue, shownMaxValue, normalizedMinValue, normalizedMaxValue, durationNanos);
+        }
+        invalidate();
+    }
+
+    /**
+     * Should a programmatic selection change glide to the new values? Not while a thumb is dragged or the bar is not
+     * on screen.
+     */
+    private boolean shouldAnimateChange(RangeState<T> previous) {
+        return animationDurationMillis > 0 && previous != null && pressedThumb == null && getWindowToken() != null;
+    }
+
+    /**
+     * Adopts the latest published range state if called on the UI thread. Other threads keep reading the current one.
+     */
+    private void syncStateOnUiThread() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            syncState();
+        }
+    }
+
+    /**
+     * Adopts a freshly published state right away on the UI thread, or schedules a redraw that adopts it otherwise.
+     */
+    private void onStatePublished() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            syncState();
+        } else {
+            postInvalidate();
+        }
+    }
+
+    /**
+     * A change to the published range state. It runs again if another thread published in the meantime, so it must only
+     * compute the next state from the given one.
+     */
+    private interface StateUpdate<T extends Number> {
+
+        RangeState<T> apply(RangeState<T> current);
+    }
+
+    private void updateState(StateUpdate<T> update) {
+        updateState(update, false);
+    }
+
+    /**
+     * Publishes the given change atomically, then adopts it on the UI thread.
+     *
+     * @param notifyListener Should the listener be notified once the change has been adopted?
+     */
+    private void updateState(StateUpdate<T> update, boolean notifyListener) {
+        RangeState<T> current;
+        do {
+            current = publishedState.get();
+        } while (!publishedState.compareAndSet(current, update.apply(current)));
+        if (notifyListener) {
+            adoptStateAndNotify();
+        } else {
+            onStatePublished();
+        }
     }
 
-    private void setValuePrimAndNumberType() {
-        absoluteMinValuePrim = absoluteMinValue.doubleValue();
-        absoluteMaxValuePrim = absoluteMaxValue.doubleValue();
-        numberType = NumberType.fromNumber(absoluteMinValue);
+    private ValueTypes getValueType() {
+        return state.discrete ? ValueTypes.DISCRETE : ValueTypes.LINEAR;
     }
 
     /**
@@ -144,13 +342,37 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
         this.notifyWhileDragging = flag;
     }
 
+    /**
+     * Should the notifications while dragging be coalesced to at most one per frame? Only the latest selection is
+     * delivered, on the next vsync. The final notification on release is always delivered right away. Default is false.
+     *
+     * @param flag
+     */
+    public void setNotifyPerFrame(boolean flag) {
+        this.notifyPerFrame = flag;
+        if (!flag) {
+            cancelFrameNotify();
+        }
+    }
+
+    /**
+     * Should the listener only be notified when the selected values differ from the last notified ones? Most useful in
+     * DISCRETE mode, where many move events land on the same stop. Default is false.
+     *
+     * @param flag
+     */
+    public void setNotifyDistinctOnly(boolean flag) {
+        this.notifyDistinctOnly = flag;
+        hasDispatchedValues = false;
+    }
+
     /**
      * Returns the absolute minimum value of the range that has been set at construction time.
      *
      * @return The absolute minimum value of the range.
      */
     public T getAbsoluteMinValue() {
-        return absoluteMinValue;
+        return publishedState.get().absoluteMinValue;
     }
 
     /**
@@ -159,26 +381,22 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
      * @return The absolute maximum value of the range.
      */
     public T getAbsoluteMaxValue() {
-        return absoluteMaxValue;
+        return publishedState.get().absoluteMaxValue;
     }
 
     /**
-     * Returns the currently selected min value.
+     * Returns the currently selected min value. In DISCRETE mode this is the stop the thumb has been snapped to.
+     * Reading the value does not change the selection or redraw the widget.
      *
      * @return The currently selected min value.
      */
     public T getSelectedMinValue(ValueTypes v) {
-
+        syncStateOnUiThread();
         switch (v) {
-            case LINEAR:
-                return normalizedToValue(normalizedMinValue);
             case DISCRETE:
-                int min1 = getSelectedMinValue(ValueTypes.LINEAR).intValue();
-                Integer min2 = getClosestValue(min1);
-                setSelectedMinValue((T) min2);
-                return (T) min2;
+                return (T) state.unscaledToNumber(getSelectedMinUnscaled(ValueTypes.DISCRETE));
             default:
-                return normalizedToValue(normalizedMinValue);
+                return (T) state.unscaledToNumber(getSelectedMinUnscaled(ValueTypes.LINEAR));
         }
 
     }
@@ -188,31 +406,61 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
      *
      * @param value The Number value to set the minimum value to. Will be clamped to given absolute minimum/maximum range.
      */
-    public void setSelectedMinValue(T value) {
-        // in case absoluteMinValue == absoluteMaxValue, avoid division by zero when normalizing.
-        if (0 == (absoluteMaxValuePrim - absoluteMinValuePrim)) {
-            setNormalizedMinValue(0d);
-        } else {
-            setNormalizedMinValue(valueToNormalized(value));
-        }
+    public void setSelectedMinValue(final T value) {
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                // through the fixed-point value, so longs beyond 2^53 and BigDecimals are not rounded to a double
+                return current.withSelectedMin(current.isEmpty() ? 0d : current.unscaledToNormalized(current.toUnscaled(value)));
+            }
+        });
+    }
+
+    /**
+     * Sets the currently selected minimum value from a primitive. The widget will be invalidated and redrawn.
+     * May be called from any thread.
+     *
+     * @param value The value to set the minimum value to. Will be clamped to given absolute minimum/maximum range.
+     */
+    protected void setSelectedMinPrim(final double value) {
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                // in case absoluteMinValue == absoluteMaxValue, avoid division by zero when normalizing.
+                return current.withSelectedMin(current.isEmpty() ? 0d : current.valueToNormalized(value));
+            }
+        });
+    }
+
+    /**
+     * Sets the currently selected minimum value from a fixed-point value, in units of 10^-decimalScale for DOUBLE, FLOAT
+     * and BIG_DECIMAL ranges. The offset into the range is taken in these units, so long values are not rounded to a
+     * double. The widget will be invalidated and redrawn. May be called from any thread.
+     *
+     * @param unscaled The value to set the minimum value to. Will be clamped to given absolute minimum/maximum range.
+     */
+    protected void setSelectedMinUnscaled(final long unscaled) {
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                return current.withSelectedMin(current.isEmpty() ? 0d : current.unscaledToNormalized(unscaled));
+            }
+        });
     }
 
     /**
-     * Returns the currently selected max value.
+     * Returns the currently selected max value. In DISCRETE mode this is the stop the thumb has been snapped to.
+     * Reading the value does not change the selection or redraw the widget.
      *
      * @return The currently selected max value.
      */
     public T getSelectedMaxValue(ValueTypes v) {
+        syncStateOnUiThread();
         switch (v) {
-            case LINEAR:
-                return normalizedToValue(normalizedMaxValue);
             case DISCRETE:
-                int max1 = getSelectedMaxValue(ValueTypes.LINEAR).intValue();
-                Integer max2 = getClosestValue(max1);
-                setSelectedMaxValue((T) max2);
-                return (T) max2;
+                return (T) state.unscaledToNumber(getSelectedMaxUnscaled(ValueTypes.DISCRETE));
             default:
-                return normalizedToValue(normalizedMaxValue);
+                return (T) state.unscaledToNumber(getSelectedMaxUnscaled(ValueTypes.LINEAR));
         }
     }
 
@@ -221,17 +469,52 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
      *
      * @param value The Number value to set the maximum value to. Will be clamped to given absolute minimum/maximum range.
      */
-    public void setSelectedMaxValue(T value) {
-        // in case absoluteMinValue == absoluteMaxValue, avoid division by zero when normalizing.
-        if (0 == (absoluteMaxValuePrim - absoluteMinValuePrim)) {
-            setNormalizedMaxValue(1d);
-        } else {
-            setNormalizedMaxValue(valueToNormalized(value));
-        }
+    public void setSelectedMaxValue(final T value) {
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                // through the fixed-point value, so longs beyond 2^53 and BigDecimals are not rounded to a double
+                return current.withSelectedMax(current.isEmpty() ? 1d : current.unscaledToNormalized(current.toUnscaled(value)));
+            }
+        });
+    }
+
+    /**
+     * Sets the currently selected maximum value from a primitive. The widget will be invalidated and redrawn.
+     * May be called from any thread.
+     *
+     * @param value The value to set the maximum value to. Will be clamped to given absolute minimum/maximum range.
+     */
+    protected void setSelectedMaxPrim(final double value) {
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                // in case absoluteMinValue == absoluteMaxValue, avoid division by zero when normalizing.
+                return current.withSelectedMax(current.isEmpty() ? 1d : current.valueToNormalized(value));
+            }
+        });
+    }
+
+    /**
+     * Sets the currently selected maximum value from a fixed-point value, in units of 10^-decimalScale for DOUBLE, FLOAT
+     * and BIG_DECIMAL ranges. The offset into the range is taken in these units, so long values are not rounded to a
+     * double. The widget will be invalidated and redrawn. May be called from any thread.
+     *
+     * @param unscaled The value to set the maximum value to. Will be clamped to given absolute minimum/maximum range.
+     */
+    protected void setSelectedMaxUnscaled(final long unscaled) {
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                return current.withSelectedMax(current.isEmpty() ? 1d : current.unscaledToNormalized(unscaled));
+            }
+        });
     }
 
     /**
-     * Registers given listener callback to notify about changed selected values.
+     * Registers given listener callback to notify about changed selected values. The values are boxed whenever they
+     * change, so a drag allocates while this listener is set; {@link IntRangeSeekBar}, {@link LongRangeSeekBar} and
+     * {@link DoubleRangeSeekBar} deliver them as primitives instead.
      *
      * @param listener The listener to notify about changed selected values.
      */
@@ -239,15 +522,78 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
         this.listener = listener;
     }
 
+    /**
+     * Registers given listener callback to be notified on the given executor instead of the UI thread. Selections that
+     * are superseded before the executor gets to them are skipped, so a slow listener only sees the newest values.
+     * Non-null results are posted back to the UI thread unless a newer selection has been dispatched in the meantime.
+     *
+     * @param listener The listener to notify about changed selected values, or null to remove it.
+     * @param executor The executor to notify the listener on.
+     */
+    public <R> void setOnRangeSeekBarChangeListener(AsyncRangeListener<T, R> listener, Executor executor) {
+        this.asyncDispatcher = listener == null ? null : new LatestRangeDispatcher<T, R>(this, listener, executor);
+    }
+
+    /**
+     * Registers given listener callback to be told how many values of the index lie inside the selection whenever the
+     * listener would be notified, e.g. to show "120 stays in this range" while dragging. The count is taken on the UI
+     * thread in O(log n).
+     *
+     * @param index    The values to count, or null to remove the listener.
+     * @param listener The listener to notify about the count.
+     */
+    public void setOnRangeCountChangeListener(SortedValueIndex index, OnRangeCountChangeListener listener) {
+        this.countIndex = listener == null ? null : index;
+        this.countListener = index == null ? null : listener;
+        updateRangeCount();
+    }
+
+    /**
+     * Counts the values inside the selection again and notifies the count listener, e.g. after the index has been
+     * updated. Must be called on the UI thread.
+     */
+    public void updateRangeCount() {
+        syncState();
+        dispatchRangeCount();
+    }
+
+    private void dispatchRangeCount() {
+        if (countListener != null) {
+            countListener.onRangeCountChanged(this, countIndex.count(
+                    getSelectedMinPrim(getValueType()), getSelectedMaxPrim(getValueType())));
+        }
+    }
+
     /**
      * Handles thumb selection and movement. Notifies listener callback on certain events.
      */
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        if (dragMetrics == null) {
+            return handleTouchEvent(event);
+        }
+        final long start = System.nanoTime();
+        final boolean handled = handleTouchEvent(event);
+        final int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN && pressedThumb != null) {
+            dragMetrics.start(getRefreshPeriodNanos());
+        }
+        if (dragMetrics.isActive()) {
+            dragMetrics.addTouchEvent(System.nanoTime() - start);
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                dragMetrics.finish();
+            }
+        }
+        return handled;
+    }
+
+    private boolean handleTouchEvent(MotionEvent event) {
 
         if (!isEnabled()) {
             return false;
         }
+        syncState();
+        ensureThumbImage();
 
         int pointerIndex;
 
@@ -255,6 +601,9 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
         switch (action & MotionEvent.ACTION_MASK) {
 
             case MotionEvent.ACTION_DOWN:
+                // a new touch takes over from a running animation
+                thumbAnimator.cancel();
+
                 // Remember where the motion event started
                 mActivePointerId = event.getPointerId(event.getPointerCount() - 1);
                 pointerIndex = event.findPointerIndex(mActivePointerId);
@@ -267,6 +616,13 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
                     return super.onTouchEvent(event);
                 }
 
+                if (lowLatencyDragging && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                    // deliver touch events as soon as they arrive instead of once per frame
+                    requestUnbufferedDispatch(event);
+                }
+                if (flingEnabled || lowLatencyDragging && dragPredictionMillis > 0) {
+                    startVelocityTracking(event);
+                }
                 setPressed(true);
                 invalidate();
                 onStartTrackingTouch();
@@ -276,6 +632,9 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
                 break;
             case MotionEvent.ACTION_MOVE:
                 if (pressedThumb != null) {
+                    if (velocityTracker != null) {
+                        velocityTracker.addMovement(event);
+                    }
 
                     if (mIsDragging) {
                         trackTouchEvent(event);
@@ -283,10 +642,6 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
                         // Scroll to follow the motion event
                         pointerIndex = event.findPointerIndex(mActivePointerId);
                         final float x = event.getX(pointerIndex);
-                        final float y = event.getRawY();
-                        int[] loc = new int[2];
-                        getLocationOnScreen(loc);
-//                        if(y>loc[1] && y<(loc[1]+getHeight())) {
 
                         if (Math.abs(x - mDownMotionX) > mScaledTouchSlop) {
                             setPressed(true);
@@ -295,19 +650,23 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
                             trackTouchEvent(event);
                             attemptClaimDrag();
                         }
-//                        }
                     }
 
-                    if (notifyWhileDragging && listener != null) {
-                        setValueChanges();
+                    if (notifyWhileDragging) {
+                        scheduleValuesChanged();
                     }
                 }
                 break;
             case MotionEvent.ACTION_UP:
+                boolean flung = false;
                 if (mIsDragging) {
                     trackTouchEvent(event);
                     onStopTrackingTouch();
                     setPressed(false);
+                    if (flingEnabled && velocityTracker != null) {
+                        velocityTracker.addMovement(event);
+                        flung = fling(pressedThumb);
+                    }
                 } else {
                     // Touch up when we never crossed the touch slop threshold
                     // should be interpreted as a tap-seek to that location.
@@ -317,9 +676,14 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
                 }
 
                 pressedThumb = null;
+                stopVelocityTracking();
                 invalidate();
-                if (listener != null) {
-                    setValueChanges();
+                cancelFrameNotify();
+                if (flung) {
+                    // the listener gets the value the thumb settles on
+                    thumbAnimator.notifyWhenSettled = true;
+                } else {
+                    notifyValuesChanged();
                 }
                 break;
             case MotionEvent.ACTION_POINTER_DOWN: {
@@ -339,6 +703,7 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
                     onStopTrackingTouch();
                     setPressed(false);
                 }
+                stopVelocityTracking();
                 invalidate(); // see above explanation
                 break;
         }
@@ -361,19 +726,37 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
 
     private final void trackTouchEvent(MotionEvent event) {
         final int pointerIndex = event.findPointerIndex(mActivePointerId);
-        final float x = event.getX(pointerIndex);
-        final float y = event.getRawY();
-        int[] loc = new int[2];
-        getLocationOnScreen(loc);
-//        if(y>loc[1] && y<(loc[1]+getHeight())) {
+        float x = event.getX(pointerIndex);
+        if (lowLatencyDragging && dragPredictionMillis > 0 && velocityTracker != null
+                && event.getActionMasked() == MotionEvent.ACTION_MOVE) {
+            // extrapolate along the current velocity to make up for the time until the frame is on screen
+            velocityTracker.computeCurrentVelocity(1000);
+            x += velocityTracker.getXVelocity(mActivePointerId) * dragPredictionMillis / 1000f;
+        }
         if (Thumb.MIN.equals(pressedThumb)) {
             setNormalizedMinValue(screenToNormalized(x));
         } else if (Thumb.MAX.equals(pressedThumb)) {
             setNormalizedMaxValue(screenToNormalized(x));
         }
-//        }
+    }
 
+    /**
+     * Starts tracking the velocity of the drag, for the prediction of a leading thumb and for the fling on release.
+     */
+    private void startVelocityTracking(MotionEvent event) {
+        if (velocityTracker == null) {
+            velocityTracker = VelocityTracker.obtain();
+        } else {
+            velocityTracker.clear();
+        }
+        velocityTracker.addMovement(event);
+    }
 
+    private void stopVelocityTracking() {
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
     }
 
     /**
@@ -399,17 +782,70 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
         mIsDragging = false;
     }
 
+    /**
+     * Lets the released thumb glide on with the velocity of the finger, decelerating until it stops. In DISCRETE mode
+     * it settles on the stop nearest to where it would have stopped.
+     *
+     * @param thumb The released thumb.
+     * @return true if the thumb was fast enough to fling.
+     */
+    private boolean fling(Thumb thumb) {
+        velocityTracker.computeCurrentVelocity(1000);
+        final float velocity = velocityTracker.getXVelocity(mActivePointerId);
+        final float trackWidth = getWidth() - 2 * padding;
+        if (thumb == null || Math.abs(velocity) < mMinimumFlingVelocity || trackWidth <= 0) {
+            return false;
+        }
+        // normalized distance per second
+        final double speed = velocity / trackWidth;
+        final double from = Thumb.MIN.equals(thumb) ? normalizedMinValue : normalizedMaxValue;
+        double to = from + speed * FLING_TIME_CONSTANT_SECONDS;
+        if (Thumb.MIN.equals(thumb)) {
+            to = Math.max(0d, Math.min(normalizedMaxValue, to));
+        } else {
+            to = Math.max(normalizedMinValue, Math.min(1d, to));
+        }
+        if (state.discrete) {
+            to = state.unscaledToNormalized(state.nearestStop(to));
+            to = Thumb.MIN.equals(thumb) ? Math.min(to, normalizedMaxValue) : Math.max(to, normalizedMinValue);
+        }
+        if (Math.round(normalizedToScreen(to)) == Math.round(normalizedToScreen(from))) {
+            return false;
+        }
+        // the thumb decelerates evenly, so it leaves with the finger's speed when the duration is twice distance / speed
+        final long durationNanos = Math.min(MAX_FLING_DURATION_NANOS,
+                (long) (2 * Math.abs(to - from) / Math.abs(speed) * 1000000000L));
+        if (Thumb.MIN.equals(thumb)) {
+            thumbAnimator.start(normalizedMinValue, normalizedMaxValue, to, normalizedMaxValue, durationNanos);
+        } else {
+            thumbAnimator.start(normalizedMinValue, normalizedMaxValue, normalizedMinValue, to, durationNanos);
+        }
+        return true;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cancelFrameNotify();
+        thumbAnimator.end();
+        stopVelocityTracking();
+        if (dragMetrics != null && dragMetrics.isActive()) {
+            dragMetrics.abort();
+        }
+        super.onDetachedFromWindow();
+    }
+
     /**
      * Ensures correct size of the widget.
      */
     @Override
-    protected synchronized void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         int width = 200;
         if (MeasureSpec.UNSPECIFIED != MeasureSpec.getMode(widthMeasureSpec)) {
             width = MeasureSpec.getSize(widthMeasureSpec);
         }
 
-        int height = thumbImage.getHeight() + dpToPx(getContext(), HEIGHT_IN_DP);
+        ensureThumbImage();
+        int height = histogramHeight + thumbImage.getHeight() + dpToPx(getContext(), HEIGHT_IN_DP);
         if (MeasureSpec.UNSPECIFIED != MeasureSpec.getMode(heightMeasureSpec)) {
             height = Math.min(height, MeasureSpec.getSize(heightMeasureSpec));
         }
@@ -420,20 +856,26 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
      * Draws the widget on the given canvas.
      */
     @Override
-    protected synchronized void onDraw(Canvas canvas) {
+    protected void onDraw(Canvas canvas) {
+        final long drawStart = dragMetrics != null ? System.nanoTime() : 0L;
         super.onDraw(canvas);
+        syncState();
+        ensureThumbImage();
 
-        paint.setStyle(Paint.Style.FILL);
-        paint.setColor(lineBgColor);
-        paint.setAntiAlias(true);
-
-        padding = INITIAL_PADDING + thumbHalfWidth;
-
-        // draw seek bar background line
-        mRect.left = padding;
-        mRect.right = getWidth() - padding;
-        //canvas.drawRect(mRect, paint);
-        canvas.drawRoundRect(mRect, lineHeight, lineHeight, paint);
+        // draw the histogram, the background line, the ticks and their labels
+        if (trackLinesDirty) {
+            layoutTrackLines();
+        }
+        drawTrack(canvas);
+
+        // tint the bins inside the selection; the lines are prebuilt, so only the clip changes per frame
+        if (histogramLines != null) {
+            final int saveCount = canvas.save();
+            canvas.clipRect(normalizedToScreen(normalizedMinValue), 0, normalizedToScreen(normalizedMaxValue), mRect.top);
+            histogramPaint.setColor(histogramHighlightedColor);
+            canvas.drawLines(histogramLines, histogramPaint);
+            canvas.restoreToCount(saveCount);
+        }
 
         // draw seek bar active range line
         mRect.left = normalizedToScreen(normalizedMinValue);
@@ -450,8 +892,228 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
         // draw maximum thumb
         drawThumb(normalizedToScreen(normalizedMaxValue), canvas);
 
+        if (dragMetrics != null && dragMetrics.isActive()) {
+            dragMetrics.addDraw(System.nanoTime() - drawStart);
+        }
+
+    }
+
+
+    /**
+     * Lays out the lines of the histogram and of the ticks, which only change with the size, range, stops or bins.
+     */
+    private void layoutTrackLines() {
+        final int width = getWidth();
+        if (width <= 0) {
+            return;
+        }
+        trackLinesDirty = false;
+        if (histogramBins != null) {
+            buildHistogramLines(width);
+        } else {
+            histogramLines = null;
+        }
+        tickCount = showTicks && state.discrete ? buildTickLines() : 0;
+    }
+
+    /**
+     * Draws the parts of the bar that do not move with the thumbs: the histogram, the background line, the ticks and
+     * their labels.
+     */
+    private void drawTrack(Canvas canvas) {
+        final int width = getWidth();
+        if (histogramLines != null) {
+            histogramPaint.setColor(histogramColor);
+            canvas.drawLines(histogramLines, histogramPaint);
+        }
+        paint.setColor(lineBgColor);
+        mRect.left = padding;
+        mRect.right = width - padding;
+        canvas.drawRoundRect(mRect, lineHeight, lineHeight, paint);
+        if (tickCount > 0) {
+            tickPaint.setColor(tickColor);
+            canvas.drawLines(tickLines, 0, 4 * tickCount, tickPaint);
+        }
+        if (showTickLabels) {
+            drawTickLabels(canvas, width);
+        }
+    }
+
+    /**
+     * Lays out one short vertical line below the background line per snap stop inside the range.
+     *
+     * @return The number of ticks.
+     */
+    private int buildTickLines() {
+        final SnapIndex stops = state.snapIndex;
+        if (tickLines == null || tickLines.length < 4 * stops.size()) {
+            tickLines = new float[4 * stops.size()];
+        }
+        final float top = mRect.bottom + tickLength;
+        int count = 0;
+        for (int i = 0; i < stops.size(); i++) {
+            final long stop = stops.get(i);
+            if (stop < state.absoluteMinUnscaled || stop > state.absoluteMaxUnscaled) {
+                continue;
+            }
+            final float x = normalizedToScreen(state.unscaledToNormalized(stop));
+            tickLines[4 * count] = x;
+            tickLines[4 * count + 1] = top;
+            tickLines[4 * count + 2] = x;
+            tickLines[4 * count + 3] = top + tickLength;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Draws the cached labels centered below their values, left to right, leaving out those that would overlap the
+     * previous one or the label of the maximum. The minimum and maximum are always labelled.
+     */
+    private void drawTickLabels(Canvas canvas, int width) {
+        ensureTickLabels();
+        final int last = tickLabels.length - 1;
+        final float gap = tickLength;
+        final float baseline = getTickLabelBaseline();
+        final float maxLeft = labelLeft(last, width);
+        float right = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i <= last; i++) {
+            final float left = labelLeft(i, width);
+            if (i != 0 && i != last && (left < right + gap || left + tickLabelWidths[i] > maxLeft - gap)) {
+                continue;
+            }
+            canvas.drawText(tickLabels[i], left, baseline, tickLabelPaint);
+            right = left + tickLabelWidths[i];
+        }
+    }
+
+    /**
+     * Returns the left edge of a label centered below its value and kept inside the view.
+     */
+    private float labelLeft(int label, int width) {
+        final float centered = normalizedToScreen(tickLabelPositions[label]) - tickLabelWidths[label] / 2;
+        return Math.max(0f, Math.min(width - tickLabelWidths[label], centered));
+    }
+
+    private float getTickLabelBaseline() {
+        ensureThumbImage();
+        return histogramHeight + thumbImage.getHeight() - tickLabelPaint.ascent();
+    }
+
+    /**
+     * Formats and measures the labels of the minimum, the snap stops inside the range in DISCRETE mode and the maximum,
+     * unless they are still valid for the current range, stops and locale.
+     */
+    private void ensureTickLabels() {
+        final Locale locale = getResources().getConfiguration().locale;
+        final RangeState<T> built = tickLabelState;
+        if (tickLabels != null && built.snapIndex == state.snapIndex && built.discrete == state.discrete
+                && built.scale == state.scale && built.absoluteMinUnscaled == state.absoluteMinUnscaled
+                && built.absoluteMaxUnscaled == state.absoluteMaxUnscaled && built.decimalScale == state.decimalScale
+                && locale.equals(tickLabelLocale)) {
+            return;
+        }
+        tickLabelState = state;
+        tickLabelLocale = locale;
+        NumberFormat format = tickLabelFormat;
+        if (format == null) {
+            format = NumberFormat.getInstance(locale);
+            format.setMaximumFractionDigits(state.numberType.isIntegral() ? 0 : state.decimalScale);
+        }
+        int count = 2;
+        final SnapIndex stops = state.snapIndex;
+        if (state.discrete) {
+            for (int i = 0; i < stops.size(); i++) {
+                if (stops.get(i) > state.absoluteMinUnscaled && stops.get(i) < state.absoluteMaxUnscaled) {
+                    count++;
+                }
+            }
+        }
+        tickLabels = new String[count];
+        tickLabelWidths = new float[count];
+        tickLabelPositions = new double[count];
+        setTickLabel(0, format.format(state.unscaledToPrim(state.absoluteMinUnscaled)), 0d);
+        int label = 1;
+        if (state.discrete) {
+            for (int i = 0; i < stops.size(); i++) {
+                final long stop = stops.get(i);
+                if (stop > state.absoluteMinUnscaled && stop < state.absoluteMaxUnscaled) {
+                    setTickLabel(label++, format.format(state.unscaledToPrim(stop)), state.unscaledToNormalized(stop));
+                }
+            }
+        }
+        setTickLabel(label, format.format(state.unscaledToPrim(state.absoluteMaxUnscaled)), 1d);
+    }
+
+    private void setTickLabel(int label, String text, double normalized) {
+        tickLabels[label] = text;
+        tickLabelWidths[label] = tickLabelPaint.measureText(text);
+        tickLabelPositions[label] = normalized;
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        if (showTickLabels && newConfig.locale != null && !newConfig.locale.equals(tickLabelLocale)) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Lays out one vertical line per bin, centered on its slice of the bar and rising from the middle of the background
+     * line, so the line covers the foot of the bins. The tallest bin reaches the top of the view.
+     */
+    private void buildHistogramLines(int width) {
+        final float[] bins = histogramBins;
+        final int count = bins.length;
+        if (histogramLines == null || histogramLines.length != 4 * count) {
+            histogramLines = new float[4 * count];
+        }
+        float maxBin = 0f;
+        for (float bin : bins) {
+            maxBin = Math.max(maxBin, bin);
+        }
+        final float base = mRect.centerY();
+        final float unit = maxBin > 0f ? base / maxBin : 0f;
+        for (int i = 0; i < count; i++) {
+            final float x = normalizedToScreen((i + 0.5d) / count);
+            histogramLines[4 * i] = x;
+            histogramLines[4 * i + 1] = base;
+            histogramLines[4 * i + 2] = x;
+            histogramLines[4 * i + 3] = base - bins[i] * unit;
+        }
+        histogramPaint.setStrokeWidth(Math.max(1f, 0.8f * (width - 2 * padding) / count));
+    }
+
+    @Override
+    public void invalidate() {
+        if (dragMetrics != null && dragMetrics.isActive()) {
+            dragMetrics.addInvalidation();
+        }
+        super.invalidate();
+    }
+
+    @Override
+    public void invalidate(int l, int t, int r, int b) {
+        if (dragMetrics != null && dragMetrics.isActive()) {
+            dragMetrics.addInvalidation();
+        }
+        super.invalidate(l, t, r, b);
+    }
+
+    /**
+     * Lays out the histogram and tick lines again and redraws the widget.
+     */
+    private void invalidateTrackLines() {
+        trackLinesDirty = true;
+        invalidate();
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        trackLinesDirty = true;
+    }
 
     /**
      * Thumb constants (min and max).
@@ -481,6 +1143,7 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
         super.onRestoreInstanceState(bundle.getParcelable("SUPER"));
         normalizedMinValue = bundle.getDouble("MIN");
         normalizedMaxValue = bundle.getDouble("MAX");
+        snapToStops();
     }
 
     /**
@@ -490,7 +1153,19 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
      * @param canvas      The canvas to draw upon.
      */
     private void drawThumb(float screenCoord, Canvas canvas) {
-        canvas.drawBitmap(thumbImage, screenCoord - thumbHalfWidth, 0, paint);
+        canvas.drawBitmap(thumbImage, screenCoord - thumbHalfWidth, histogramHeight, paint);
+    }
+
+    /**
+     * Loads the thumb at its size unless it has been loaded already: a thumb drawable is rasterized once, a resource is
+     * decoded through the shared {@link ThumbCache}.
+     */
+    private void ensureThumbImage() {
+        if (thumbImage == null) {
+            applyThumbImage(thumbDrawable != null
+                    ? ThumbCache.rasterize(thumbDrawable, thumbSize)
+                    : ThumbCache.get(getResources(), thumbResId, thumbSize));
+        }
     }
 
     /**
@@ -526,36 +1201,89 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
     }
 
     /**
-     * Sets normalized min value to value so that 0 <= value <= normalized max value <= 1. The View will get invalidated when calling this method.
+     * Sets normalized min value to value so that 0 <= value <= normalized max value <= 1. The part of the View the thumb moved across will get invalidated when calling this method.
      *
      * @param value The new normalized min value to set.
      */
     private void setNormalizedMinValue(double value) {
+        final double oldValue = normalizedMinValue;
         normalizedMinValue = Math.max(0d, Math.min(1d, Math.min(value, normalizedMaxValue)));
-        invalidate();
+        if (state.discrete) {
+            snapMinValue();
+        }
+        invalidateThumbMove(oldValue, normalizedMinValue);
     }
 
     /**
-     * Sets normalized max value to value so that 0 <= normalized min value <= value <= 1. The View will get invalidated when calling this method.
+     * Sets normalized max value to value so that 0 <= normalized min value <= value <= 1. The part of the View the thumb moved across will get invalidated when calling this method.
      *
      * @param value The new normalized max value to set.
      */
     private void setNormalizedMaxValue(double value) {
+        final double oldValue = normalizedMaxValue;
         normalizedMaxValue = Math.max(0d, Math.min(1d, Math.max(value, normalizedMinValue)));
-        invalidate();
+        if (state.discrete) {
+            snapMaxValue();
+        }
+        invalidateThumbMove(oldValue, normalizedMaxValue);
     }
 
     /**
-     * Converts a normalized value to a Number object in the value space between absolute minimum and maximum.
+     * Invalidates the span a thumb moved across: its old and new bounds and the part of the highlighted line in
+     * between. Nothing is invalidated if the thumb stays on the same pixel.
      *
-     * @param normalized
-     * @return
+     * @param oldNormalized The normalized thumb position before the move.
+     * @param newNormalized The normalized thumb position after the move.
      */
-    @SuppressWarnings("unchecked")
-    private T normalizedToValue(double normalized) {
-        double v = absoluteMinValuePrim + normalized * (absoluteMaxValuePrim - absoluteMinValuePrim);
-        // TODO parameterize this rounding to allow variable decimal points
-        return (T) numberType.toNumber(Math.round(v * 100) / 100d);
+    private void invalidateThumbMove(double oldNormalized, double newNormalized) {
+        final int oldX = Math.round(normalizedToScreen(oldNormalized));
+        final int newX = Math.round(normalizedToScreen(newNormalized));
+        if (oldX == newX) {
+            return;
+        }
+        // the rounded line ends reach up to lineHeight past the thumb centre
+        final int margin = (int) Math.ceil(Math.max(thumbHalfWidth, lineHeight)) + 1;
+        invalidate(Math.min(oldX, newX) - margin, 0, Math.max(oldX, newX) + margin, getHeight());
+    }
+
+    /**
+     * Snaps both thumbs to their closest stops if the bar is in DISCRETE mode. The getters only read the result.
+     */
+    private void snapToStops() {
+        if (state.discrete) {
+            snapMinValue();
+            snapMaxValue();
+        }
+    }
+
+    /**
+     * Moves the min thumb onto its closest stop and caches the stop value.
+     */
+    private void snapMinValue() {
+        snappedMinValue = state.nearestStop(normalizedMinValue);
+        normalizedMinValue = Math.max(0d, Math.min(1d, Math.min(state.unscaledToNormalized(snappedMinValue), normalizedMaxValue)));
+    }
+
+    /**
+     * Moves the max thumb onto its closest stop and caches the stop value.
+     */
+    private void snapMaxValue() {
+        snappedMaxValue = state.nearestStop(normalizedMaxValue);
+        normalizedMaxValue = Math.max(0d, Math.min(1d, Math.max(state.unscaledToNormalized(snappedMaxValue), normalizedMinValue)));
+    }
+
+    /**
+     * Returns the stop for a thumb without touching any state. In DISCRETE mode this is the cached snapped value.
+     *
+     * @param normalized The normalized thumb position.
+     * @param snapped    The cached stop of that thumb.
+     * @return The stop as a fixed-point value.
+     */
+    private long getDiscreteValue(double normalized, long snapped) {
+        if (state.discrete) {
+            return snapped;
+        }
+        return state.nearestStop(normalized);
     }
 
     /**
@@ -565,11 +1293,17 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
      * @return The normalized double.
      */
     private double valueToNormalized(T value) {
-        if (0 == absoluteMaxValuePrim - absoluteMinValuePrim) {
-            // prevent division by zero, simply return 0.
-            return 0d;
-        }
-        return (value.doubleValue() - absoluteMinValuePrim) / (absoluteMaxValuePrim - absoluteMinValuePrim);
+        return valueToNormalized(value.doubleValue());
+    }
+
+    /**
+     * Converts the given primitive value to a normalized double.
+     *
+     * @param value The value to normalize.
+     * @return The normalized double.
+     */
+    private double valueToNormalized(double value) {
+        return state.valueToNormalized(value);
     }
 
     /**
@@ -579,7 +1313,7 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
      * @return The converted value in screen space.
      */
     private float normalizedToScreen(double normalizedCoord) {
-        return (float) (padding + normalizedCoord * (getWidth() - 2 * padding));
+        return RangeState.normalizedToScreen(normalizedCoord, getWidth(), padding);
     }
 
     /**
@@ -589,14 +1323,7 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
      * @return The normalized value.
      */
     private double screenToNormalized(float screenCoord) {
-        int width = getWidth();
-        if (width <= 2 * padding) {
-            // prevent division by zero, simply return 0.
-            return 0d;
-        } else {
-            double result = (screenCoord - padding) / (width - 2 * padding);
-            return Math.min(1d, Math.max(0d, result));
-        }
+        return RangeState.screenToNormalized(screenCoord, getWidth(), padding);
     }
 
     /**
@@ -610,6 +1337,36 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
         void onRangeSeekBarValuesChanged(GHRangeSeekBar<?> bar, T minValue, T maxValue);
     }
 
+    /**
+     * Callback listener interface to handle changed range values off the UI thread.
+     *
+     * @param <T> The Number type the RangeSeekBar has been declared with.
+     * @param <R> The type of the result handed back to the UI thread.
+     */
+    public interface AsyncRangeListener<T, R> {
+
+        /**
+         * Called on the executor with the newest selected values.
+         *
+         * @return A result for {@link #onRangeSeekBarResult(GHRangeSeekBar, Object)}, or null to skip it.
+         */
+        R onRangeSeekBarValuesChanged(GHRangeSeekBar<?> bar, T minValue, T maxValue);
+
+        /**
+         * Called on the UI thread with the result for the newest selected values. Results of superseded values are
+         * dropped.
+         */
+        void onRangeSeekBarResult(GHRangeSeekBar<?> bar, R result);
+    }
+
+    /**
+     * Callback listener interface to notify about the number of values inside the selected range.
+     */
+    public interface OnRangeCountChangeListener {
+
+        void onRangeCountChanged(GHRangeSeekBar<?> bar, int count);
+    }
+
     /**
      * Thumb constants (min and max).
      */
@@ -618,60 +1375,107 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
     }
 
     /**
-     * Utility enumeration used to convert between Numbers and doubles.
-     *
-     * @author Stephan Tittel (stephan.tittel@kom.tu-darmstadt.de)
+     * Moves both thumbs from where they are shown to their targets, one step per frame, decelerating towards the end.
+     * The bar has a single instance that is restarted for every change, so animating does not allocate.
      */
-    private enum NumberType {
-        LONG, DOUBLE, INTEGER, FLOAT, SHORT, BYTE, BIG_DECIMAL;
+    private final class ThumbAnimator implements Choreographer.FrameCallback {
+
+        private boolean running;
+        private double fromMin, fromMax, toMin, toMax;
+        private long startNanos, durationNanos;
+        // the first frame starts the clock, so the animation runs on frame time alone, like ValueAnimator
+        private boolean startPending;
+        // notify the listener when the thumbs arrive, e.g. after a fling
+        private boolean notifyWhenSettled;
+
+        /**
+         * Starts moving the thumbs, or retargets the running animation. A pending notification is kept.
+         */
+        void start(double fromMin, double fromMax, double toMin, double toMax, long durationNanos) {
+            this.fromMin = fromMin;
+            this.fromMax = fromMax;
+            this.toMin = toMin;
+            this.toMax = toMax;
+            this.startPending = true;
+            this.durationNanos = durationNanos;
+            normalizedMinValue = fromMin;
+            normalizedMaxValue = fromMax;
+            if (!running) {
+                running = true;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
 
-        public static <E extends Number> NumberType fromNumber(E value) throws IllegalArgumentException {
-            if (value instanceof Long) {
-                return LONG;
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!running) {
+                return;
             }
-            if (value instanceof Double) {
-                return DOUBLE;
+            if (startPending) {
+                startPending = false;
+                startNanos = frameTimeNanos;
             }
-            if (value instanceof Integer) {
-                return INTEGER;
+            final double t = durationNanos <= 0 ? 1d : Math.min(1d, (double) (frameTimeNanos - startNanos) / durationNanos);
+            if (t >= 1d) {
+                end();
+                return;
             }
-            if (value instanceof Float) {
-                return FLOAT;
+            // ease out: the speed drops linearly to zero
+            final double f = 1d - (1d - t) * (1d - t);
+            // min <= max holds all the way, as it does at both ends
+            moveTo(fromMin + (toMin - fromMin) * f, fromMax + (toMax - fromMax) * f);
+            if (notifyWhenSettled && notifyWhileAnimating) {
+                notifyValuesChanged();
             }
-            if (value instanceof Short) {
-                return SHORT;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        /**
+         * Jumps to the targets and delivers a pending notification.
+         */
+        void end() {
+            if (running) {
+                moveTo(toMin, toMax);
+                settle();
             }
-            if (value instanceof Byte) {
-                return BYTE;
+        }
+
+        /**
+         * Stops the thumbs where they are shown, on their nearest stops in DISCRETE mode, and delivers a pending
+         * notification.
+         */
+        void cancel() {
+            if (running) {
+                settle();
+                invalidate();
             }
-            if (value instanceof BigDecimal) {
-                return BIG_DECIMAL;
+        }
+
+        private void settle() {
+            running = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+            snapToStops();
+            if (notifyWhenSettled) {
+                notifyWhenSettled = false;
+                notifyValuesChanged();
             }
-            throw new IllegalArgumentException("Number class '" + value.getClass().getName() + "' is not supported");
         }
 
-        public Number toNumber(double value) {
-            switch (this) {
-                case LONG:
-                    return Long.valueOf((long) value);
-                case DOUBLE:
-                    return value;
-                case INTEGER:
-                    return Integer.valueOf((int) value);
-                case FLOAT:
-                    return Float.valueOf((float) value);
-                case SHORT:
-                    return Short.valueOf((short) value);
-                case BYTE:
-                    return Byte.valueOf((byte) value);
-                case BIG_DECIMAL:
-                    return BigDecimal.valueOf(value);
+        private void moveTo(double min, double max) {
+            final double oldMin = normalizedMinValue;
+            final double oldMax = normalizedMaxValue;
+            normalizedMinValue = min;
+            normalizedMaxValue = max;
+            if (state.discrete && notifyWhenSettled && notifyWhileAnimating) {
+                // the stops the thumbs pass, for the notifications in between
+                snappedMinValue = state.nearestStop(min);
+                snappedMaxValue = state.nearestStop(max);
             }
-            throw new InstantiationError("can't convert " + this + " to a Number object");
+            invalidateThumbMove(oldMin, min);
+            invalidateThumbMove(oldMax, max);
         }
     }
 
-
     private int dpToPx(Context context, int dp) {
         return Math.round(dp * getPixelScaleFactor(context));
     }
@@ -682,72 +1486,276 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
     }
 
 
-    private void setValueChanges() {
-        listener.onRangeSeekBarValuesChanged(this, getSelectedMinValue(mValueType), getSelectedMaxValue(mValueType));
+    /**
+     * Notifies about a selection change while dragging, either right away or on the next frame.
+     */
+    private void scheduleValuesChanged() {
+        if (!notifyPerFrame) {
+            notifyValuesChanged();
+        } else if (!frameNotifyPending) {
+            frameNotifyPending = true;
+            Choreographer.getInstance().postFrameCallback(notifyFrameCallback);
+        }
     }
 
-    private void setRangeBarArrayList() {
-        int MAX = getMaxRange((Integer) getAbsoluteMaxValue());
-        int i = getMinRange((Integer) getAbsoluteMinValue());
-        if (rangeList == null)
-            rangeList = new ArrayList<>();
-        else
-            rangeList.clear();
+    private void cancelFrameNotify() {
+        if (frameNotifyPending) {
+            frameNotifyPending = false;
+            Choreographer.getInstance().removeFrameCallback(notifyFrameCallback);
+        }
+    }
 
-        do {
-            rangeList.add(i);
-            int length = String.valueOf(i).length();
-            int step_min = (int) Math.pow(10, length - 1);
+    /**
+     * Notifies the listeners unless only distinct values are wanted and the selection has not changed since the last
+     * notification.
+     */
+    private void notifyValuesChanged() {
+        if (notifyDistinctOnly) {
+            final long min = getSelectedMinUnscaled(getValueType());
+            final long max = getSelectedMaxUnscaled(getValueType());
+            if (hasDispatchedValues && min == dispatchedMinUnscaled && max == dispatchedMaxUnscaled) {
+                return;
+            }
+            dispatchedMinUnscaled = min;
+            dispatchedMaxUnscaled = max;
+            hasDispatchedValues = true;
+        }
+        if (dragMetrics != null && dragMetrics.isActive()) {
+            final long start = System.nanoTime();
+            dispatchValuesChanged();
+            dragMetrics.addNotification(System.nanoTime() - start);
+        } else {
+            dispatchValuesChanged();
+        }
+    }
 
-            int step = stepCalculation(i, step_min);
+    /**
+     * Notifies the registered listeners about the current selection. Subclasses with primitive listeners override this
+     * to deliver the values without boxing.
+     */
+    protected void dispatchValuesChanged() {
+        if (listener != null || asyncDispatcher != null) {
+            setValueChanges();
+        }
+        dispatchRangeCount();
+    }
 
-            i += step;
+    /**
+     * Notifies the listener about the current selection. The Number objects of the previous call are handed out again
+     * while the selection does not change, so a drag only boxes values when they actually move.
+     */
+    @SuppressWarnings("unchecked")
+    private void setValueChanges() {
+        final long min = getSelectedMinUnscaled(getValueType());
+        final long max = getSelectedMaxUnscaled(getValueType());
+        if (notifiedMinValue == null || min != notifiedMinUnscaled) {
+            notifiedMinValue = (T) state.unscaledToNumber(min);
+            notifiedMinUnscaled = min;
+        }
+        if (notifiedMaxValue == null || max != notifiedMaxUnscaled) {
+            notifiedMaxValue = (T) state.unscaledToNumber(max);
+            notifiedMaxUnscaled = max;
+        }
+        if (listener != null) {
+            listener.onRangeSeekBarValuesChanged(this, notifiedMinValue, notifiedMaxValue);
         }
-        while (i <= MAX);
+        if (asyncDispatcher != null) {
+            asyncDispatcher.submit(notifiedMinValue, notifiedMaxValue);
+        }
+    }
+
+    /**
+     * Returns the currently selected min value for the current value type without boxing it.
+     */
+    protected double getSelectedMinPrim() {
+        syncStateOnUiThread();
+        return getSelectedMinPrim(getValueType());
+    }
+
+    /**
+     * Returns the currently selected max value for the current value type without boxing it.
+     */
+    protected double getSelectedMaxPrim() {
+        syncStateOnUiThread();
+        return getSelectedMaxPrim(getValueType());
+    }
+
+    /**
+     * Returns the currently selected min value for the current value type as fixed-point long, see
+     * {@link RangeState#normalizedToUnscaled(double)}. For integral types this is the value itself.
+     */
+    protected long getSelectedMinUnscaled() {
+        syncStateOnUiThread();
+        return getSelectedMinUnscaled(getValueType());
+    }
+
+    /**
+     * Returns the currently selected max value for the current value type as fixed-point long.
+     */
+    protected long getSelectedMaxUnscaled() {
+        syncStateOnUiThread();
+        return getSelectedMaxUnscaled(getValueType());
+    }
+
+    /**
+     * Returns the currently selected min value without boxing it.
+     */
+    private double getSelectedMinPrim(ValueTypes v) {
+        return state.unscaledToPrim(getSelectedMinUnscaled(v));
+    }
+
+    /**
+     * Returns the currently selected max value without boxing it.
+     */
+    private double getSelectedMaxPrim(ValueTypes v) {
+        return state.unscaledToPrim(getSelectedMaxUnscaled(v));
+    }
 
+    private long getSelectedMinUnscaled(ValueTypes v) {
+        if (v == ValueTypes.DISCRETE) {
+            return getDiscreteValue(normalizedMinValue, snappedMinValue);
+        }
+        return state.normalizedToUnscaled(normalizedMinValue);
     }
 
+    private long getSelectedMaxUnscaled(ValueTypes v) {
+        if (v == ValueTypes.DISCRETE) {
+            return getDiscreteValue(normalizedMaxValue, snappedMaxValue);
+        }
+        return state.normalizedToUnscaled(normalizedMaxValue);
+    }
 
     public static int getMinRange(int min) {
-        if (min < 10)
-            return min;
-        int roundTo = (int) Math.pow(10, String.valueOf(min).length() - 1);
-        return (int) Math.floor(min / roundTo) * roundTo;
+        return (int) SnapIndex.getMinRange(min);
     }
 
     public static int getMaxRange(int max) {
-        int roundTo = (int) Math.pow(10, String.valueOf(max).length() - 1);
-        return (int) Math.ceil((float) max / (float) roundTo) * roundTo;
+        return (int) SnapIndex.getMaxRange(max);
     }
 
-    private int stepCalculation(int i, int stepMin) {
-        if (stepMin <= 1)
-            return 1;
-        else if (i >= stepMin && i < stepMin * 2)
-            return stepMin / 10;
-        else if (i >= stepMin * 2 && i < stepMin * 4)
-            return (stepMin / 10) * 2;
-        else
-            return (stepMin / 10) * 5;
+    /************************** imp methods for user ***********************/
+
+    /**
+     * Registers given sink to receive performance metrics of every drag session, see {@link DragMetrics}. Without a sink,
+     * which is the default, nothing is measured.
+     *
+     * @param sink The sink, or null to stop measuring.
+     */
+    public void setDragMetricsSink(DragMetrics.Sink sink) {
+        if (dragMetrics != null && dragMetrics.isActive()) {
+            dragMetrics.abort();
+        }
+        this.dragMetrics = sink == null ? null : new DragMetrics(this, sink);
+    }
 
+    private long getRefreshPeriodNanos() {
+        float refreshRate = 60f;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && getDisplay() != null) {
+            refreshRate = getDisplay().getRefreshRate();
+        }
+        return (long) (1000000000L / refreshRate);
     }
 
-    private int getClosestValue(int val) {
-        int min = Math.abs(rangeList.get(0) - val);
-        int closest = val;
+    /**
+     * Should touch events be delivered to the bar as soon as they arrive (API 21+) instead of batched once per frame?
+     * Thumbs then follow the latest sample with less delay; combine with {@link #setNotifyPerFrame(boolean)} to keep
+     * listener calls at one per frame. Default is false.
+     */
+    public void setLowLatencyDragging(boolean flag) {
+        this.lowLatencyDragging = flag;
+    }
 
-        for (int i : rangeList) {
-            final int diff = Math.abs(i - val);
+    /**
+     * Sets how far ahead in milliseconds a dragged thumb is extrapolated along the finger's velocity, to hide the time
+     * until a frame reaches the screen. The velocity is taken over all samples of the drag, including the historical
+     * samples batched into each event. Only used with {@link #setLowLatencyDragging(boolean)}; the released thumb
+     * always lands where the finger was lifted. Default is 0, no prediction.
+     */
+    public void setDragPredictionMillis(int dragPredictionMillis) {
+        this.dragPredictionMillis = dragPredictionMillis;
+    }
 
-            if (diff < min) {
-                min = diff;
-                closest = i;
-            }
+    /**
+     * Sets how long programmatic selection changes take to glide to the new values, e.g. from
+     * {@link #setSelectedMinValue(Number)}, {@link #resetSelectedValues()} or {@link #setmValueType(ValueTypes)}. Both
+     * thumbs are moved by one callback per frame. While the thumbs glide, the getters return the values shown; where the
+     * change notifies the listener, it is notified once they have settled. A touch stops the animation where it is.
+     * Default is 0, the thumbs jump.
+     *
+     * @param animationDurationMillis The duration in milliseconds, or 0 to jump.
+     */
+    public void setAnimationDuration(int animationDurationMillis) {
+        this.animationDurationMillis = Math.max(0, animationDurationMillis);
+        if (animationDurationMillis <= 0) {
+            thumbAnimator.end();
         }
-        return closest;
     }
 
-    /************************** imp methods for user ***********************/
+    /**
+     * Should a thumb released in a fast drag glide on with the finger's velocity until it stops? In DISCRETE mode it
+     * settles on the nearest stop. The listener is notified once, with the settled values. Default is false.
+     */
+    public void setFlingEnabled(boolean flag) {
+        this.flingEnabled = flag;
+    }
+
+    /**
+     * Should the listener be notified on every frame of a fling or of a change that notifies once settled, instead of
+     * only with the settled values? Default is false.
+     */
+    public void setNotifyWhileAnimating(boolean flag) {
+        this.notifyWhileAnimating = flag;
+    }
+
+    /**
+     * Should a tick be drawn below the line at every snap stop in DISCRETE mode, to show where the thumbs can land?
+     * The ticks are laid out once per size, range and stops, so drawing them takes a single drawLines call. Default is
+     * false.
+     */
+    public void setShowTicks(boolean flag) {
+        this.showTicks = flag;
+        invalidateTrackLines();
+    }
+
+    /**
+     * Should the minimum and maximum of the range, and in DISCRETE mode the snap stops, be labelled below the bar?
+     * Labels that would overlap are left out. The labels are formatted and measured once per range, stops and locale,
+     * so drawing them does not measure text. The bar needs to be tall enough for them, which its default height is for
+     * the default text size. Default is false.
+     */
+    public void setShowTickLabels(boolean flag) {
+        this.showTickLabels = flag;
+        invalidate();
+    }
+
+    public void setTickColor(int tickColor) {
+        this.tickColor = tickColor;
+        invalidate();
+    }
+
+    public void setTickLabelColor(int tickLabelColor) {
+        tickLabelPaint.setColor(tickLabelColor);
+        invalidate();
+    }
+
+    /**
+     * @param textSize The text size of the labels in pixels.
+     */
+    public void setTickLabelTextSize(float textSize) {
+        tickLabelPaint.setTextSize(textSize);
+        tickLabels = null;
+        invalidate();
+    }
+
+    /**
+     * Sets the format of the labels, e.g. a currency format. Default is null, the number format of the current locale
+     * with the decimal places of the bar.
+     */
+    public void setTickLabelFormat(NumberFormat format) {
+        this.tickLabelFormat = format;
+        tickLabels = null;
+        invalidate();
+    }
 
     public void setLineHighlightedColor(int lineHighlightedColor) {
         this.lineHighlightedColor = lineHighlightedColor;
@@ -755,41 +1763,408 @@ public class GHRangeSeekBar<T extends Number> extends ImageView {
 
     public void setLineBgColor(int lineBgColor) {
         this.lineBgColor = lineBgColor;
+        invalidate();
     }
 
     public void setLineHeight(int lineHeight) {
         this.lineHeight = lineHeight;
         mRect = new RectF(padding,
-                thumbHalfHeight - lineHeight / 2,
+                histogramHeight + thumbHalfHeight - lineHeight / 2,
                 getWidth() - padding,
-                thumbHalfHeight + lineHeight / 2);
+                histogramHeight + thumbHalfHeight + lineHeight / 2);
+        invalidateTrackLines();
+    }
+
+    /**
+     * Sets the distribution of values drawn behind the track, e.g. the number of listings per price band. The bins
+     * split the bar into equal slices, so they should be built along the current scale; the bins inside the selection
+     * are tinted. Must be called on the UI thread.
+     *
+     * @param bins The height of each bin, in any unit, or null to remove the histogram. Copied.
+     */
+    public void setHistogram(float[] bins) {
+        this.histogramBins = bins == null || bins.length == 0 ? null : bins.clone();
+        invalidateTrackLines();
+    }
+
+    /**
+     * Creates an empty histogram that bins values against the current range, scale and value type of this bar, ready
+     * for {@link #setHistogram(float[])} through {@link ValueHistogram#toBins()}. May be called from any thread; create
+     * a new one when the range, scale or value type changes.
+     *
+     * @param binCount The number of bins.
+     */
+    public ValueHistogram newHistogram(int binCount) {
+        return new ValueHistogram(publishedState.get(), binCount);
+    }
+
+    /**
+     * Sets the extra room in pixels above the thumbs for the histogram. The tallest bin rises from the background line
+     * to the top of the view.
+     */
+    public void setHistogramHeight(int histogramHeight) {
+        this.histogramHeight = histogramHeight;
+        setLineHeight(lineHeight);
+        requestLayout();
+    }
+
+    public void setHistogramColor(int histogramColor) {
+        this.histogramColor = histogramColor;
+        invalidate();
     }
 
+    public void setHistogramHighlightedColor(int histogramHighlightedColor) {
+        this.histogramHighlightedColor = histogramHighlightedColor;
+        invalidate();
+    }
+
+    /**
+     * Sets the thumb bitmap. With a thumb size set, a bitmap of another height is scaled once to that height; prefer
+     * {@link #setThumbResource(int)} or {@link #setThumbDrawable(Drawable)}, which never hold the full-size image.
+     *
+     * @param thumbImage The thumb bitmap.
+     */
     public void setThumbImage(Bitmap thumbImage) throws NullPointerException {
+        thumbDrawable = null;
+        thumbBitmapSet = true;
+        applyThumbImage(ThumbCache.scale(thumbImage, thumbSize));
+    }
+
+    /**
+     * Sets the thumb from a bitmap resource. It is decoded at the thumb size and shared between all bars using the same
+     * resource and size. Default is the built-in thumb.
+     *
+     * @param resId The drawable resource id of a bitmap.
+     */
+    public void setThumbResource(int resId) {
+        thumbDrawable = null;
+        thumbBitmapSet = false;
+        thumbResId = resId;
+        reloadThumbImage();
+    }
+
+    /**
+     * Sets the thumb from a drawable, e.g. a vector drawable. It is rasterized once, at the thumb size or else at its
+     * intrinsic size.
+     *
+     * @param drawable The thumb drawable.
+     */
+    public void setThumbDrawable(Drawable drawable) {
+        thumbDrawable = drawable;
+        thumbBitmapSet = false;
+        reloadThumbImage();
+    }
+
+    /**
+     * Sets the height the thumb is drawn at; the width follows from the aspect ratio. Resource and drawable thumbs are
+     * loaded at that height, so each bar holds no larger bitmap than it draws. Set it before a thumb bitmap, which
+     * is scaled from the bitmap as it is. Default is 0, the natural size of the thumb.
+     *
+     * @param thumbSize The height in pixels, or 0 for the natural size.
+     */
+    public void setThumbSize(int thumbSize) {
+        this.thumbSize = Math.max(0, thumbSize);
+        if (thumbBitmapSet) {
+            applyThumbImage(ThumbCache.scale(thumbImage, this.thumbSize));
+        } else {
+            reloadThumbImage();
+        }
+    }
+
+    private void reloadThumbImage() {
+        thumbImage = null;
+        ensureThumbImage();
+        requestLayout();
+        invalidate();
+    }
+
+    private void applyThumbImage(Bitmap thumbImage) {
         this.thumbImage = thumbImage;
         thumbWidth = thumbImage.getWidth();
         thumbHalfWidth = 0.5f * thumbWidth;
         thumbHalfHeight = 0.5f * thumbImage.getHeight();
+        padding = INITIAL_PADDING + thumbHalfWidth;
         setLineHeight(lineHeight);
     }
 
+    /**
+     * Selects the whole range. May be called from any thread.
+     */
     public void resetSelectedValues() {
-        setSelectedMinValue(absoluteMinValue);
-        setSelectedMaxValue(absoluteMaxValue);
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                return current.withSelectedMin(0d).withSelectedMax(1d);
+            }
+        });
+    }
+
+    /**
+     * Sets the absolute minimum and maximum of the range. May be called from any thread, e.g. with bounds from a
+     * network response; the snap table is built on the calling thread.
+     */
+    public void setRangeValues(final T minValue, final T maxValue) {
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                return current.withRange(minValue, maxValue);
+            }
+        });
+    }
+
+    /**
+     * Sets the number of decimal places of DOUBLE, FLOAT and BIG_DECIMAL values, 2 by default. Values are computed as
+     * fixed-point longs with this many places, so they carry no float noise. Integral values are always whole. May be
+     * called from any thread.
+     *
+     * @param decimalScale The number of decimal places, from 0 to {@link RangeState#MAX_DECIMAL_SCALE}.
+     */
+    public void setDecimalScale(final int decimalScale) {
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                return current.withDecimalScale(decimalScale);
+            }
+        });
+    }
+
+    /**
+     * Sets how thumb positions map to values, e.g. {@link ValueScale#LOG} for heavily skewed ranges. The selected values
+     * are kept. May be called from any thread; the lookup table of the scale is built on the calling thread.
+     *
+     * @param scale The scale, {@link ValueScale#LINEAR} by default.
+     */
+    public void setValueScale(final ValueScale scale) {
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                return current.withScale(scale);
+            }
+        });
     }
 
-    public void setRangeValues(T minValue, T maxValue) {
-        this.absoluteMinValue = minValue;
-        this.absoluteMaxValue = maxValue;
-        setValuePrimAndNumberType();
-        setRangeBarArrayList();
+    /**
+     * Sets the stops the thumbs snap to in DISCRETE mode, e.g. stops at the quantiles of real prices from
+     * {@link QuantileSketch#snapStops(int)}. The stops are kept when the range changes. May be called from any thread.
+     *
+     * @param snapIndex The stops in whole values of the range, or null to go back to the stops derived from the
+     *                  absolute range.
+     */
+    public void setSnapIndex(SnapIndex snapIndex) {
+        setSnapIndex(snapIndex, 0);
+    }
+
+    /**
+     * Sets stops with decimal places, e.g. {@code setSnapIndex(sketch.snapStops(10, 2), 2)} for a Double range of
+     * prices in rupees and paise. The stops are rounded to the decimal scale of the bar, see
+     * {@link #setDecimalScale(int)}. May be called from any thread.
+     *
+     * @param snapIndex  The stops in fixed-point units of 10^-stopsScale, or null to go back to the stops derived from
+     *                   the absolute range.
+     * @param stopsScale The decimal places of the stops.
+     */
+    public void setSnapIndex(final SnapIndex snapIndex, final int stopsScale) {
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                return current.withSnapIndex(snapIndex, stopsScale);
+            }
+        });
     }
 
+    /**
+     * Switches between LINEAR and DISCRETE mode, selects the whole range and notifies the listener. May be called from
+     * any thread; the listener is always notified on the UI thread.
+     */
     public void setmValueType(ValueTypes mValueType) {
-        this.mValueType = mValueType;
-        resetSelectedValues();
-        if(listener!=null)
-            listener.onRangeSeekBarValuesChanged(this,getSelectedMinValue(mValueType),getSelectedMaxValue(mValueType));
+        final boolean discrete = mValueType == ValueTypes.DISCRETE;
+        updateState(new StateUpdate<T>() {
+            @Override
+            public RangeState<T> apply(RangeState<T> current) {
+                return current.withDiscrete(discrete).withSelectedMin(0d).withSelectedMax(1d);
+            }
+        }, true);
+    }
+
+    /**
+     * Adopts the published state and notifies the listener, on the UI thread.
+     */
+    private void adoptStateAndNotify() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            syncState();
+            cancelFrameNotify();
+            if (thumbAnimator.running) {
+                thumbAnimator.notifyWhenSettled = true;
+            } else {
+                notifyValuesChanged();
+            }
+        } else {
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    adoptStateAndNotify();
+                }
+            });
+        }
+    }
+
+    /**
+     * Starts a batch of changes that is applied at once: the range is validated and the snap table built once, and the
+     * widget is redrawn and the listener notified once, with the final values only.
+     * <pre>
+     * bar.edit().range(500, 50000).type(ValueTypes.DISCRETE).selection(1000, 5000).apply();
+     * </pre>
+     *
+     * @return A new editor for this bar.
+     */
+    public Editor edit() {
+        return new Editor();
+    }
+
+    /**
+     * Collects changes to the range, value type and selection of the bar. Nothing happens until {@link #apply()}.
+     */
+    public final class Editor {
+
+        private T rangeMinValue, rangeMaxValue;
+        private ValueTypes valueType;
+        private ValueScale scale;
+        private SnapIndex snapIndex;
+        private int snapIndexScale;
+        private boolean snapIndexSet;
+        private T selectedMinValue, selectedMaxValue;
+        private boolean notifyListener = true;
+
+        private Editor() {
+        }
+
+        /**
+         * Sets the absolute minimum and maximum of the range.
+         */
+        public Editor range(T minValue, T maxValue) {
+            this.rangeMinValue = minValue;
+            this.rangeMaxValue = maxValue;
+            return this;
+        }
+
+        /**
+         * Sets the value type. Unless a selection is set as well, the whole range gets selected, as with
+         * {@link #setmValueType(ValueTypes)}.
+         */
+        public Editor type(ValueTypes valueType) {
+            this.valueType = valueType;
+            return this;
+        }
+
+        /**
+         * Sets the scale, see {@link #setValueScale(ValueScale)}.
+         */
+        public Editor scale(ValueScale scale) {
+            this.scale = scale;
+            return this;
+        }
+
+        /**
+         * Sets the snap stops, see {@link #setSnapIndex(SnapIndex)}.
+         */
+        public Editor snapIndex(SnapIndex snapIndex) {
+            return snapIndex(snapIndex, 0);
+        }
+
+        /**
+         * Sets snap stops with decimal places, see {@link #setSnapIndex(SnapIndex, int)}.
+         */
+        public Editor snapIndex(SnapIndex snapIndex, int stopsScale) {
+            this.snapIndex = snapIndex;
+            this.snapIndexScale = stopsScale;
+            this.snapIndexSet = true;
+            return this;
+        }
+
+        /**
+         * Sets the selected values. They are clamped to the (new) range.
+         */
+        public Editor selection(T minValue, T maxValue) {
+            this.selectedMinValue = minValue;
+            this.selectedMaxValue = maxValue;
+            return this;
+        }
+
+        /**
+         * Should the listener be notified once the changes are applied? Default is true.
+         */
+        public Editor notifyListener(boolean flag) {
+            this.notifyListener = flag;
+            return this;
+        }
+
+        /**
+         * Validates and applies all changes at once. May be called from any thread.
+         *
+         * @throws IllegalArgumentException if a minimum is null or larger than its maximum.
+         */
+        public void apply() {
+            if (rangeMinValue != null || rangeMaxValue != null) {
+                requireBothEnds(rangeMinValue, rangeMaxValue, "range");
+            }
+            if (selectedMinValue != null || selectedMaxValue != null) {
+                requireBothEnds(selectedMinValue, selectedMaxValue, "selection");
+            }
+
+            updateState(new StateUpdate<T>() {
+                @Override
+                public RangeState<T> apply(RangeState<T> current) {
+                    return applyTo(current);
+                }
+            }, notifyListener);
+        }
+
+        /**
+         * Applies the collected changes to the given state.
+         */
+        private RangeState<T> applyTo(RangeState<T> current) {
+            RangeState<T> next = current;
+            if (rangeMinValue != null) {
+                next = next.withRange(rangeMinValue, rangeMaxValue);
+                requireOrdered(next.absoluteMinUnscaled, next.absoluteMaxUnscaled, rangeMinValue, rangeMaxValue, "range");
+            }
+            if (valueType != null) {
+                next = next.withDiscrete(valueType == ValueTypes.DISCRETE);
+            }
+            if (scale != null) {
+                next = next.withScale(scale);
+            }
+            if (snapIndexSet) {
+                next = next.withSnapIndex(snapIndex, snapIndexScale);
+            }
+            if (selectedMinValue != null) {
+                // through the fixed-point values, like setSelectedMinValue and setSelectedMaxValue
+                final long min = next.toUnscaled(selectedMinValue);
+                final long max = next.toUnscaled(selectedMaxValue);
+                requireOrdered(min, max, selectedMinValue, selectedMaxValue, "selection");
+                // in case absoluteMinValue == absoluteMaxValue, avoid division by zero when normalizing.
+                next = next.withSelectedMin(next.isEmpty() ? 0d : next.unscaledToNormalized(min))
+                        .withSelectedMax(next.isEmpty() ? 1d : next.unscaledToNormalized(max));
+            } else if (valueType != null) {
+                next = next.withSelectedMin(0d).withSelectedMax(1d);
+            }
+            return next;
+        }
+
+        private void requireBothEnds(T minValue, T maxValue, String what) {
+            if (minValue == null || maxValue == null) {
+                throw new IllegalArgumentException("Both ends of the " + what + " must be set");
+            }
+        }
+
+        /**
+         * Compares the fixed-point values, so longs beyond 2^53 that round to the same double are still told apart.
+         */
+        private void requireOrdered(long min, long max, T minValue, T maxValue, String what) {
+            if (min > max) {
+                throw new IllegalArgumentException("The " + what + " minimum " + minValue + " is larger than its maximum " + maxValue);
+            }
+        }
     }
 
 }
\ No newline at end of file
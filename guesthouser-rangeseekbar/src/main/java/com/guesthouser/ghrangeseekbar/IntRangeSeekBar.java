@@ -0,0 +1,87 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.content.Context;
+import android.util.AttributeSet;
+
+/**
+ * {@link GHRangeSeekBar} for int ranges. Values are read, set and delivered to {@link OnRangeChangeListener} as
+ * primitives, so no Integer objects are created while the user drags a thumb.
+ */
+public class IntRangeSeekBar extends GHRangeSeekBar<Integer> {
+
+    private OnRangeChangeListener rangeListener;
+
+    public IntRangeSeekBar(Context context) {
+        this(context, null);
+    }
+
+    public IntRangeSeekBar(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public IntRangeSeekBar(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+    }
+
+    public void setRangeValues(int minValue, int maxValue) {
+        super.setRangeValues(Integer.valueOf(minValue), Integer.valueOf(maxValue));
+    }
+
+    /**
+     * Returns the currently selected min value for the current value type.
+     */
+    public int getSelectedMin() {
+        return (int) getSelectedMinUnscaled();
+    }
+
+    /**
+     * Returns the currently selected max value for the current value type.
+     */
+    public int getSelectedMax() {
+        return (int) getSelectedMaxUnscaled();
+    }
+
+    /**
+     * Sets the currently selected minimum value. The widget will be invalidated and redrawn.
+     *
+     * @param value The value to set the minimum value to. Will be clamped to given absolute minimum/maximum range.
+     */
+    public void setSelectedMin(int value) {
+        setSelectedMinUnscaled(value);
+    }
+
+    /**
+     * Sets the currently selected maximum value. The widget will be invalidated and redrawn.
+     *
+     * @param value The value to set the maximum value to. Will be clamped to given absolute minimum/maximum range.
+     */
+    public void setSelectedMax(int value) {
+        setSelectedMaxUnscaled(value);
+    }
+
+    /**
+     * Registers given listener callback to notify about changed selected values. It is called in addition to a
+     * listener registered through {@link #setOnRangeSeekBarChangeListener(OnRangeSeekBarChangeListener)}.
+     *
+     * @param listener The listener to notify about changed selected values.
+     */
+    public void setOnRangeChangeListener(OnRangeChangeListener listener) {
+        this.rangeListener = listener;
+    }
+
+    @Override
+    protected void dispatchValuesChanged() {
+        super.dispatchValuesChanged();
+        if (rangeListener != null) {
+            rangeListener.onRangeSeekBarValuesChanged(this, getSelectedMin(), getSelectedMax());
+        }
+    }
+
+    /**
+     * Callback listener interface to notify about changed range values without boxing them.
+     */
+    public interface OnRangeChangeListener {
+
+        void onRangeSeekBarValuesChanged(IntRangeSeekBar bar, int minValue, int maxValue);
+    }
+}
@@ -0,0 +1,111 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Delivers range changes of a {@link GHRangeSeekBar} to an {@link GHRangeSeekBar.AsyncRangeListener} on an
+ * {@link Executor}. Changes are conflated: at most one delivery is queued on the executor at any time and it always
+ * picks up the newest selection, so a slow listener only ever sees the latest (min, max) pair. Results are posted
+ * to the main looper, not through the view, so they also arrive while the bar is detached, and are dropped if a newer
+ * selection has been submitted in the meantime.
+ *
+ * @param <T> The Number type of the range values.
+ * @param <R> The type of the result posted back to the UI thread.
+ */
+final class LatestRangeDispatcher<T extends Number, R> implements Runnable {
+
+    private final GHRangeSeekBar<T> bar;
+    private final GHRangeSeekBar.AsyncRangeListener<T, R> listener;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Object lock = new Object();
+    private T pendingMinValue, pendingMaxValue;
+    private boolean pending;
+    private boolean scheduled;
+    private volatile long generation;
+
+    LatestRangeDispatcher(GHRangeSeekBar<T> bar, GHRangeSeekBar.AsyncRangeListener<T, R> listener, Executor executor) {
+        this.bar = bar;
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    /**
+     * Replaces the pending selection with the given one and makes sure a delivery is queued on the executor.
+     * Called on the UI thread.
+     */
+    void submit(T minValue, T maxValue) {
+        synchronized (lock) {
+            pendingMinValue = minValue;
+            pendingMaxValue = maxValue;
+            pending = true;
+            generation++;
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            synchronized (lock) {
+                scheduled = false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drains the pending selection on the executor until no newer one has arrived. If the listener throws, the next
+     * submitted selection queues a new delivery.
+     */
+    @Override
+    public void run() {
+        boolean drained = false;
+        try {
+            while (true) {
+                final T minValue, maxValue;
+                final long delivered;
+                synchronized (lock) {
+                    if (!pending) {
+                        scheduled = false;
+                        drained = true;
+                        return;
+                    }
+                    minValue = pendingMinValue;
+                    maxValue = pendingMaxValue;
+                    delivered = generation;
+                    pending = false;
+                    pendingMinValue = null;
+                    pendingMaxValue = null;
+                }
+                final R result = listener.onRangeSeekBarValuesChanged(bar, minValue, maxValue);
+                if (result != null) {
+                    postResult(result, delivered);
+                }
+            }
+        } finally {
+            if (!drained) {
+                synchronized (lock) {
+                    scheduled = false;
+                }
+            }
+        }
+    }
+
+    private void postResult(final R result, final long delivered) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (delivered == generation) {
+                    listener.onRangeSeekBarResult(bar, result);
+                }
+            }
+        });
+    }
+}
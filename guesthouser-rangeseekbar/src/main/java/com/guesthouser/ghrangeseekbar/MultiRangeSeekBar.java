@@ -0,0 +1,455 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+import android.view.ViewConfiguration;
+import android.widget.ImageView;
+
+import java.util.Arrays;
+
+/**
+ * Seek bar with any number of thumbs on one numerical range, e.g. price tiers or several availability windows. Thumbs
+ * never pass each other; thumb i always lies left of or on thumb i + 1. The segments between the thumbs can each get
+ * their own color.
+ * <p/>
+ * Positions are kept in a sorted primitive array ({@link ThumbPositions}), so finding the touched thumb is a binary
+ * search, and the segments are drawn from a prebuilt line buffer with one {@code drawLines} call per run of equal
+ * colors. Segments are not batched into one call: a Paint has one color, and {@code drawVertices} with per-vertex
+ * colors is drawn in software on hardware accelerated canvases before API 29. Neither touch handling nor drawing
+ * allocates, so bars with 50 and more thumbs stay smooth. Ranges, scales and
+ * DISCRETE stops work as on {@link GHRangeSeekBar}. Unlike there, all methods must be called on the UI thread.
+ *
+ * @param <T> The Number type of the range values. One of Long, Double, Integer, Float, Short, Byte or BigDecimal.
+ */
+public class MultiRangeSeekBar<T extends Number> extends ImageView {
+
+    public static final int DEFAULT_THUMB_COUNT = 3;
+
+    private RangeState<T> state;
+    private ThumbPositions positions = new ThumbPositions(DEFAULT_THUMB_COUNT);
+    // one color per segment: before the first thumb, between each pair, after the last; 0 leaves the background
+    private int[] segmentColors;
+    // one line (x0, y0, x1, y1) per segment, rebuilt on every draw
+    private float[] segmentLines;
+
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint segmentPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF trackRect = new RectF();
+    private int lineHeight = 20;
+    private int lineBgColor = 0xFFFFFFFF;
+    private int lineHighlightedColor = 0xFF00BA8C;
+
+    private Bitmap thumbImage;
+    private float thumbHalfWidth;
+    private float thumbHalfHeight;
+    private float padding;
+
+    private int pressedThumb = -1;
+    private float mDownMotionX;
+    private int mActivePointerId = GHRangeSeekBar.INVALID_POINTER_ID;
+    private int mScaledTouchSlop;
+    private boolean mIsDragging;
+    private boolean notifyWhileDragging;
+    private OnThumbValueChangeListener listener;
+
+    public MultiRangeSeekBar(Context context) {
+        this(context, null);
+    }
+
+    public MultiRangeSeekBar(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public MultiRangeSeekBar(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+        state = RangeState.create((T) GHRangeSeekBar.DEFAULT_MINIMUM, (T) GHRangeSeekBar.DEFAULT_MAXIMUM);
+        paint.setStyle(Paint.Style.FILL);
+        segmentPaint.setStyle(Paint.Style.STROKE);
+        segmentPaint.setStrokeCap(Paint.Cap.BUTT);
+        segmentPaint.setStrokeWidth(lineHeight);
+        resetSegments();
+        setFocusable(true);
+        setFocusableInTouchMode(true);
+        mScaledTouchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+    }
+
+    /**
+     * Callback listener interface to notify about a moved thumb.
+     */
+    public interface OnThumbValueChangeListener {
+
+        /**
+         * @param thumb The index of the moved thumb. Read the values through
+         *              {@link MultiRangeSeekBar#getSelectedValue(int)}.
+         */
+        void onThumbValueChanged(MultiRangeSeekBar<?> bar, int thumb);
+    }
+
+    public void setOnThumbValueChangeListener(OnThumbValueChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Should the listener be notified while the user is still dragging a thumb? Default is false.
+     */
+    public void setNotifyWhileDragging(boolean flag) {
+        this.notifyWhileDragging = flag;
+    }
+
+    /**
+     * Sets the number of thumbs and spreads them evenly over the range. The segment colors are reset.
+     */
+    public void setThumbCount(int count) {
+        positions = new ThumbPositions(count);
+        pressedThumb = -1;
+        resetSegments();
+        invalidate();
+    }
+
+    public int getThumbCount() {
+        return positions.size();
+    }
+
+    public void setRangeValues(T minValue, T maxValue) {
+        state = state.withRange(minValue, maxValue);
+        snapToStops();
+        invalidate();
+    }
+
+    public T getAbsoluteMinValue() {
+        return state.absoluteMinValue;
+    }
+
+    public T getAbsoluteMaxValue() {
+        return state.absoluteMaxValue;
+    }
+
+    /**
+     * Sets how thumb positions map to values, see {@link GHRangeSeekBar#setValueScale(ValueScale)}. The thumbs keep
+     * their positions.
+     */
+    public void setValueScale(ValueScale scale) {
+        state = state.withScale(scale);
+        snapToStops();
+        invalidate();
+    }
+
+    /**
+     * Switches between LINEAR and DISCRETE mode. In DISCRETE mode the thumbs snap to the stops of the range.
+     */
+    public void setValueType(GHRangeSeekBar.ValueTypes valueType) {
+        state = state.withDiscrete(valueType == GHRangeSeekBar.ValueTypes.DISCRETE);
+        snapToStops();
+        invalidate();
+    }
+
+    /**
+     * Returns the value of the given thumb. In DISCRETE mode this is the stop the thumb has been snapped to.
+     */
+    @SuppressWarnings("unchecked")
+    public T getSelectedValue(int thumb) {
+        return (T) state.unscaledToNumber(getSelectedUnscaled(thumb));
+    }
+
+    /**
+     * Moves the given thumb to the given value, clamped to the range and between its neighbours.
+     */
+    public void setSelectedValue(int thumb, T value) {
+        moveThumb(thumb, toNormalized(value));
+        invalidate();
+    }
+
+    /**
+     * Sets the values of all thumbs at once, in any order; they are sorted onto the thumbs.
+     *
+     * @param values One value per thumb.
+     */
+    @SafeVarargs
+    public final void setSelectedValues(T... values) {
+        final double[] normalized = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            normalized[i] = toNormalized(values[i]);
+        }
+        positions.setAll(normalized);
+        snapToStops();
+        invalidate();
+    }
+
+    /**
+     * Sets the color of one segment. Segment 0 lies before the first thumb, segment i between thumb i - 1 and thumb i
+     * and the last one after the last thumb. 0 leaves the background line visible.
+     */
+    public void setSegmentColor(int segment, int color) {
+        segmentColors[segment] = color;
+        invalidate();
+    }
+
+    /**
+     * Sets the colors of all segments, see {@link #setSegmentColor(int, int)}.
+     *
+     * @param colors One color per segment, i.e. one more than there are thumbs.
+     */
+    public void setSegmentColors(int... colors) {
+        if (colors.length != segmentColors.length) {
+            throw new IllegalArgumentException("Expected " + segmentColors.length + " segment colors, got " + colors.length);
+        }
+        System.arraycopy(colors, 0, segmentColors, 0, colors.length);
+        invalidate();
+    }
+
+    public void setLineBgColor(int lineBgColor) {
+        this.lineBgColor = lineBgColor;
+        invalidate();
+    }
+
+    public void setLineHeight(int lineHeight) {
+        this.lineHeight = lineHeight;
+        segmentPaint.setStrokeWidth(lineHeight);
+        invalidate();
+    }
+
+    public void setThumbImage(Bitmap thumbImage) {
+        this.thumbImage = thumbImage;
+        thumbHalfWidth = 0.5f * thumbImage.getWidth();
+        thumbHalfHeight = 0.5f * thumbImage.getHeight();
+        padding = thumbHalfWidth;
+        requestLayout();
+        invalidate();
+    }
+
+    private void ensureThumbImage() {
+        if (thumbImage == null) {
+            setThumbImage(ThumbCache.get(getResources(), R.drawable.ic_thumb, 0));
+        }
+    }
+
+    /**
+     * Highlights the segments between the first and the last thumb, like the selected range of a two-thumb bar.
+     */
+    private void resetSegments() {
+        final int count = positions.size() + 1;
+        segmentColors = new int[count];
+        Arrays.fill(segmentColors, 1, count - 1, lineHighlightedColor);
+        segmentLines = new float[4 * count];
+    }
+
+    /**
+     * Normalizes a value through its fixed-point value, so longs beyond 2^53 and BigDecimals are not rounded to a double.
+     */
+    private double toNormalized(T value) {
+        return state.isEmpty() ? 0d : state.unscaledToNormalized(state.toUnscaled(value));
+    }
+
+    private long getSelectedUnscaled(int thumb) {
+        if (state.discrete) {
+            return state.nearestStop(positions.get(thumb));
+        }
+        return state.normalizedToUnscaled(positions.get(thumb));
+    }
+
+    /**
+     * Moves a thumb between its neighbours, onto its closest stop in DISCRETE mode.
+     */
+    private void moveThumb(int thumb, double normalized) {
+        if (state.discrete) {
+            normalized = state.unscaledToNormalized(state.nearestStop(Math.max(0d, Math.min(1d, normalized))));
+        }
+        positions.move(thumb, normalized);
+    }
+
+    private void snapToStops() {
+        if (state.discrete) {
+            for (int i = 0; i < positions.size(); i++) {
+                moveThumb(i, positions.get(i));
+            }
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = 200;
+        if (MeasureSpec.UNSPECIFIED != MeasureSpec.getMode(widthMeasureSpec)) {
+            width = MeasureSpec.getSize(widthMeasureSpec);
+        }
+
+        ensureThumbImage();
+        int height = thumbImage.getHeight() + dpToPx(GHRangeSeekBar.HEIGHT_IN_DP);
+        if (MeasureSpec.UNSPECIFIED != MeasureSpec.getMode(heightMeasureSpec)) {
+            height = Math.min(height, MeasureSpec.getSize(heightMeasureSpec));
+        }
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        ensureThumbImage();
+
+        // background line
+        trackRect.set(padding, thumbHalfHeight - lineHeight / 2, getWidth() - padding, thumbHalfHeight + lineHeight / 2);
+        paint.setColor(lineBgColor);
+        canvas.drawRoundRect(trackRect, lineHeight, lineHeight, paint);
+
+        // segments, one drawLines call per run of equal colors
+        final int thumbCount = positions.size();
+        float x0 = toScreen(0d);
+        for (int segment = 0; segment <= thumbCount; segment++) {
+            final float x1 = segment == thumbCount ? toScreen(1d) : toScreen(positions.get(segment));
+            final int line = 4 * segment;
+            segmentLines[line] = x0;
+            segmentLines[line + 1] = thumbHalfHeight;
+            segmentLines[line + 2] = x1;
+            segmentLines[line + 3] = thumbHalfHeight;
+            x0 = x1;
+        }
+        int runStart = 0;
+        for (int segment = 1; segment <= thumbCount + 1; segment++) {
+            if (segment <= thumbCount && segmentColors[segment] == segmentColors[runStart]) {
+                continue;
+            }
+            if (segmentColors[runStart] != 0) {
+                segmentPaint.setColor(segmentColors[runStart]);
+                canvas.drawLines(segmentLines, 4 * runStart, 4 * (segment - runStart), segmentPaint);
+            }
+            runStart = segment;
+        }
+
+        for (int thumb = 0; thumb < thumbCount; thumb++) {
+            canvas.drawBitmap(thumbImage, toScreen(positions.get(thumb)) - thumbHalfWidth, 0, paint);
+        }
+    }
+
+    /**
+     * Handles thumb selection and movement. Notifies listener callback on certain events.
+     */
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isEnabled()) {
+            return false;
+        }
+        ensureThumbImage();
+
+        int pointerIndex;
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mActivePointerId = event.getPointerId(event.getPointerCount() - 1);
+                pointerIndex = event.findPointerIndex(mActivePointerId);
+                mDownMotionX = event.getX(pointerIndex);
+
+                pressedThumb = evalPressedThumb(mDownMotionX);
+                // Only handle thumb presses.
+                if (pressedThumb < 0) {
+                    return super.onTouchEvent(event);
+                }
+                setPressed(true);
+                invalidate();
+                mIsDragging = true;
+                trackTouchEvent(event);
+                attemptClaimDrag();
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (pressedThumb >= 0) {
+                    if (mIsDragging) {
+                        trackTouchEvent(event);
+                    } else {
+                        pointerIndex = event.findPointerIndex(mActivePointerId);
+                        if (Math.abs(event.getX(pointerIndex) - mDownMotionX) > mScaledTouchSlop) {
+                            setPressed(true);
+                            mIsDragging = true;
+                            trackTouchEvent(event);
+                            attemptClaimDrag();
+                        }
+                    }
+                    if (notifyWhileDragging && listener != null) {
+                        listener.onThumbValueChanged(this, pressedThumb);
+                    }
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (pressedThumb >= 0) {
+                    trackTouchEvent(event);
+                    mIsDragging = false;
+                    setPressed(false);
+                    if (listener != null) {
+                        listener.onThumbValueChanged(this, pressedThumb);
+                    }
+                }
+                pressedThumb = -1;
+                invalidate();
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN: {
+                final int index = event.getPointerCount() - 1;
+                mDownMotionX = event.getX(index);
+                mActivePointerId = event.getPointerId(index);
+                invalidate();
+                break;
+            }
+            case MotionEvent.ACTION_POINTER_UP:
+                onSecondaryPointerUp(event);
+                invalidate();
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                mIsDragging = false;
+                pressedThumb = -1;
+                setPressed(false);
+                invalidate();
+                break;
+        }
+        return true;
+    }
+
+    private void onSecondaryPointerUp(MotionEvent ev) {
+        final int pointerIndex = ev.getActionIndex();
+
+        final int pointerId = ev.getPointerId(pointerIndex);
+        if (pointerId == mActivePointerId) {
+            // This was our active pointer going up. Choose
+            // a new active pointer and adjust accordingly.
+            final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
+            mDownMotionX = ev.getX(newPointerIndex);
+            mActivePointerId = ev.getPointerId(newPointerIndex);
+        }
+    }
+
+    private void trackTouchEvent(MotionEvent event) {
+        final int pointerIndex = event.findPointerIndex(mActivePointerId);
+        moveThumb(pressedThumb, RangeState.screenToNormalized(event.getX(pointerIndex), getWidth(), padding));
+        invalidate();
+    }
+
+    /**
+     * Decides which (if any) thumb is touched by the given x-coordinate, with the same tie-break for stacked thumbs as
+     * {@link GHRangeSeekBar}: the one with more room to drag.
+     *
+     * @return The index of the pressed thumb or -1 if none has been touched.
+     */
+    private int evalPressedThumb(float touchX) {
+        final float trackWidth = getWidth() - 2 * padding;
+        if (trackWidth <= 0) {
+            return -1;
+        }
+        return positions.hitTest(RangeState.screenToNormalized(touchX, getWidth(), padding), thumbHalfWidth / trackWidth);
+    }
+
+    private void attemptClaimDrag() {
+        if (getParent() != null) {
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+    }
+
+    private float toScreen(double normalized) {
+        return RangeState.normalizedToScreen(normalized, getWidth(), padding);
+    }
+
+    private int dpToPx(int dp) {
+        final DisplayMetrics displayMetrics = getContext().getResources().getDisplayMetrics();
+        return Math.round(dp * displayMetrics.xdpi / DisplayMetrics.DENSITY_DEFAULT);
+    }
+}
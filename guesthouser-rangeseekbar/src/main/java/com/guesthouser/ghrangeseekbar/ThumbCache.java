@@ -0,0 +1,135 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+/**
+ * Process-wide cache of decoded thumb bitmaps, shared by all {@link GHRangeSeekBar} instances. Entries are keyed by
+ * resource id, screen density and thumb height and evicted least recently used once the cache holds more than
+ * {@link #MAX_SIZE_BYTES} of pixels. Thumbs of a given height are decoded at that height, so no bitmap is larger than
+ * what is drawn.
+ * <p/>
+ * The cached bitmaps are shared, so they must never be recycled or modified by a seek bar.
+ */
+final class ThumbCache {
+
+    static final int MAX_SIZE_BYTES = 512 * 1024;
+
+    private static final LruCache<String, Bitmap> CACHE = new LruCache<String, Bitmap>(MAX_SIZE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+
+    private ThumbCache() {
+    }
+
+    /**
+     * Returns the decoded bitmap of the given drawable resource, decoding it on first use for the current density and
+     * height.
+     *
+     * @param resources The resources to decode from.
+     * @param resId     The drawable resource id.
+     * @param height    The height to decode at in pixels, or 0 for the size of the resource at the screen density.
+     * @return The shared bitmap.
+     */
+    static Bitmap get(Resources resources, int resId, int height) {
+        final String key = resId + ":" + resources.getDisplayMetrics().densityDpi + ":" + height;
+        Bitmap bitmap = CACHE.get(key);
+        if (bitmap == null || bitmap.isRecycled()) {
+            bitmap = decode(resources, resId, height);
+            if (bitmap != null) {
+                CACHE.put(key, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Decodes the given resource straight at the given height. Whole powers of two are skipped while decoding
+     * ({@code inSampleSize}) and the rest is scaled by the decoder, so the full-size image is never in memory. Opaque
+     * formats are decoded to RGB_565, half the memory of ARGB_8888.
+     */
+    private static Bitmap decode(Resources resources, int resId, int height) {
+        if (height <= 0) {
+            return BitmapFactory.decodeResource(resources, resId);
+        }
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        BitmapFactory.decodeResource(resources, resId, options);
+        if (options.outHeight <= 0) {
+            return null;
+        }
+        setScaledDecode(options, height);
+        final Bitmap bitmap = BitmapFactory.decodeResource(resources, resId, options);
+        if (bitmap != null) {
+            // the density was only borrowed for scaling; draw the bitmap 1:1
+            bitmap.setDensity(resources.getDisplayMetrics().densityDpi);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Turns options filled by a bounds-only decode into options that decode straight at the given height: the largest
+     * power of two that keeps the image at least that tall is skipped, and the density ratio scales the rest.
+     */
+    static void setScaledDecode(BitmapFactory.Options options, int height) {
+        int sampleSize = 1;
+        while (options.outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        // scale the subsampled height to the exact one
+        options.inScaled = true;
+        options.inDensity = options.outHeight / sampleSize;
+        options.inTargetDensity = height;
+        if ("image/jpeg".equals(options.outMimeType)) {
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+        }
+    }
+
+    /**
+     * Draws the given drawable, e.g. a vector drawable, into a new bitmap of the given height, or of its intrinsic size
+     * if the height is 0. The bounds of the drawable are restored afterwards.
+     *
+     * @throws IllegalArgumentException if neither the drawable nor the height gives a size.
+     */
+    static Bitmap rasterize(Drawable drawable, int height) {
+        int width = drawable.getIntrinsicWidth();
+        int intrinsicHeight = drawable.getIntrinsicHeight();
+        if (height > 0) {
+            // keep the aspect ratio, or make it square if the drawable has none
+            width = width > 0 && intrinsicHeight > 0 ? Math.max(1, Math.round((float) width * height / intrinsicHeight)) : height;
+        } else if (width > 0 && intrinsicHeight > 0) {
+            height = intrinsicHeight;
+        } else {
+            throw new IllegalArgumentException("The thumb drawable has no intrinsic size, set a thumb size");
+        }
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        final Rect bounds = drawable.copyBounds();
+        drawable.setBounds(0, 0, width, height);
+        drawable.draw(new Canvas(bitmap));
+        drawable.setBounds(bounds);
+        return bitmap;
+    }
+
+    /**
+     * Returns the given bitmap scaled to the given height, or the bitmap itself if it already has that height or the
+     * height is 0.
+     */
+    static Bitmap scale(Bitmap bitmap, int height) {
+        if (height <= 0 || bitmap.getHeight() == height) {
+            return bitmap;
+        }
+        final int width = Math.max(1, Math.round((float) bitmap.getWidth() * height / bitmap.getHeight()));
+        return Bitmap.createScaledBitmap(bitmap, width, height, true);
+    }
+}
@@ -0,0 +1,74 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class DragMetricsTest {
+
+    private static final long REFRESH_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    private DragMetrics metrics;
+    private DragMetrics reported;
+
+    @Before
+    public void setUp() throws Exception {
+        // frame callbacks run one frame after they were posted, when the test advances the clock
+        ShadowLooper.pauseMainLooper();
+        ShadowChoreographer.setPostFrameCallbackDelay(16);
+        IntRangeSeekBar bar = new IntRangeSeekBar(RuntimeEnvironment.application);
+        metrics = new DragMetrics(bar, new DragMetrics.Sink() {
+            @Override
+            public void onDragSessionFinished(GHRangeSeekBar<?> bar, DragMetrics metrics) {
+                reported = metrics;
+            }
+        });
+    }
+
+    @Test
+    public void countsEveryFrameOnce() throws Exception {
+        metrics.start(REFRESH_PERIOD_NANOS);
+        runFrames(10);
+        metrics.finish();
+        assertTrue("frames " + reported.getFrameCount(), reported.getFrameCount() > 0);
+        assertTrue("frames " + reported.getFrameCount(), reported.getFrameCount() <= 10);
+    }
+
+    @Test
+    public void restartedSessionCountsEveryFrameOnce() throws Exception {
+        metrics.start(REFRESH_PERIOD_NANOS);
+        // a second ACTION_DOWN before the session finished
+        metrics.start(REFRESH_PERIOD_NANOS);
+        runFrames(10);
+        metrics.finish();
+        assertTrue("frames " + reported.getFrameCount(), reported.getFrameCount() > 0);
+        assertTrue("frames " + reported.getFrameCount(), reported.getFrameCount() <= 10);
+        assertEquals(0, reported.getJankyFrameCount());
+    }
+
+    @Test
+    public void abortDoesNotReport() throws Exception {
+        metrics.start(REFRESH_PERIOD_NANOS);
+        runFrames(3);
+        metrics.abort();
+        assertFalse(metrics.isActive());
+        assertNull(reported);
+    }
+
+    private static void runFrames(int frames) {
+        for (int i = 0; i < frames; i++) {
+            ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+        }
+    }
+}
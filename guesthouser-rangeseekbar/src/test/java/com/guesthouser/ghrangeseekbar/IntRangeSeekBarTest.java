@@ -0,0 +1,208 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.text.DecimalFormat;
+import java.text.FieldPosition;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class IntRangeSeekBarTest {
+
+    private static final int MOVES = 1000;
+
+    private IntRangeSeekBar bar;
+    private int notifications;
+    private int lastMinValue;
+
+    @Before
+    public void setUp() throws Exception {
+        bar = new IntRangeSeekBar(RuntimeEnvironment.application);
+        bar.setThumbImage(Bitmap.createBitmap(20, 20, Bitmap.Config.ARGB_8888));
+        bar.layout(0, 0, 1000, 100);
+        bar.setRangeValues(0, 10000);
+        bar.setNotifyWhileDragging(true);
+        bar.setOnRangeChangeListener(new IntRangeSeekBar.OnRangeChangeListener() {
+            @Override
+            public void onRangeSeekBarValuesChanged(IntRangeSeekBar bar, int minValue, int maxValue) {
+                notifications++;
+                lastMinValue = minValue;
+            }
+        });
+    }
+
+    @Test
+    public void dragDoesNotAllocate() throws Exception {
+        // the min thumb goes back and forth over most of the bar and is released where it was pressed
+        TouchTrace trace = new TouchTrace();
+        trace.record(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 12f, 10f, 0));
+        for (int i = 1; i <= MOVES; i++) {
+            final float x = 12f + (400 - Math.abs(i % 800 - 400)) * 2f;
+            trace.record(MotionEvent.obtain(0, 8 * i, MotionEvent.ACTION_MOVE, x, 10f, 0));
+        }
+        trace.record(MotionEvent.obtain(0, 8 * MOVES + 8, MotionEvent.ACTION_UP, 12f, 10f, 0));
+
+        // the first drag loads classes and links call sites
+        TouchTraceReplayer.replay(bar, trace);
+        // every move and the release
+        assertEquals(MOVES + 1, notifications);
+        notifications = 0;
+        TouchTraceReplayer.Report report = TouchTraceReplayer.replay(bar, trace);
+        long moveBytes = 0;
+        for (int i = 1; i <= MOVES; i++) {
+            moveBytes += report.getAllocatedBytes(i);
+        }
+        assertEquals(report.toString(), 0L, moveBytes);
+        assertEquals(MOVES + 1, notifications);
+    }
+
+    @Test
+    public void flingSettlesOnStopInDiscreteMode() throws Exception {
+        bar.setmValueType(GHRangeSeekBar.ValueTypes.DISCRETE);
+        flingMinThumb();
+
+        runFrames(60);
+        final int settled = bar.getSelectedMinValue(GHRangeSeekBar.ValueTypes.DISCRETE);
+        assertTrue("settled at " + settled, settled > 1000);
+        assertEquals(RangeState.create(0, 10000).withDiscrete(true).snapUnscaled(settled), settled);
+        // the thumb is shown on the stop too
+        assertEquals(settled, (int) bar.getSelectedMinValue(GHRangeSeekBar.ValueTypes.LINEAR));
+        // once, with the settled value
+        assertEquals(1, notifications);
+        assertEquals(settled, lastMinValue);
+    }
+
+    @Test
+    public void actionDownCancelsFling() throws Exception {
+        flingMinThumb();
+        runFrames(2);
+        // lands on the max thumb, the min thumb stops where it is shown
+        bar.onTouchEvent(MotionEvent.obtain(100, 100, MotionEvent.ACTION_DOWN, 990f, 10f, 0));
+        final int stopped = bar.getSelectedMinValue(GHRangeSeekBar.ValueTypes.LINEAR);
+        assertEquals(1, notifications);
+        assertEquals(stopped, lastMinValue);
+
+        runFrames(60);
+        assertEquals(stopped, (int) bar.getSelectedMinValue(GHRangeSeekBar.ValueTypes.LINEAR));
+        assertEquals(1, notifications);
+    }
+
+    @Test
+    public void flingNotifiesEveryFrameWhileAnimating() throws Exception {
+        bar.setNotifyWhileAnimating(true);
+        flingMinThumb();
+        runFrames(60);
+        assertTrue("notifications " + notifications, notifications > 1);
+        assertEquals((int) bar.getSelectedMinValue(GHRangeSeekBar.ValueTypes.LINEAR), lastMinValue);
+    }
+
+    /**
+     * Drags the min thumb at about 1500 pixels per second and releases it.
+     */
+    private void flingMinThumb() {
+        // frame callbacks run one frame after they were posted, when the test advances the clock
+        ShadowLooper.pauseMainLooper();
+        ShadowChoreographer.setPostFrameCallbackDelay(16);
+        bar.setNotifyWhileDragging(false);
+        bar.setFlingEnabled(true);
+        notifications = 0;
+        bar.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 12f, 10f, 0));
+        for (int i = 1; i <= 3; i++) {
+            bar.onTouchEvent(MotionEvent.obtain(0, 10 * i, MotionEvent.ACTION_MOVE, 12f + 15 * i, 10f, 0));
+        }
+        bar.onTouchEvent(MotionEvent.obtain(0, 40, MotionEvent.ACTION_UP, 72f, 10f, 0));
+        // the thumb is flung, so the listener waits for it to settle
+        assertEquals(0, notifications);
+    }
+
+    private static void runFrames(int frames) {
+        for (int i = 0; i < frames; i++) {
+            ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    public void tickLabelsAreFormattedOncePerRangeAndLocale() throws Exception {
+        final int[] formatted = new int[1];
+        bar.setShowTickLabels(true);
+        bar.setTickLabelFormat(new DecimalFormat("#") {
+            @Override
+            public StringBuffer format(long number, StringBuffer result, FieldPosition position) {
+                formatted[0]++;
+                return super.format(number, result, position);
+            }
+
+            @Override
+            public StringBuffer format(double number, StringBuffer result, FieldPosition position) {
+                formatted[0]++;
+                return super.format(number, result, position);
+            }
+        });
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(1000, 100, Bitmap.Config.ARGB_8888));
+        bar.onDraw(canvas);
+        // the minimum and the maximum
+        assertEquals(2, formatted[0]);
+
+        bar.setSelectedMaxValue(5000);
+        bar.setTickColor(Color.RED);
+        bar.onDraw(canvas);
+        bar.onDraw(canvas);
+        assertEquals(2, formatted[0]);
+
+        bar.setRangeValues(0, 20000);
+        bar.onDraw(canvas);
+        assertEquals(4, formatted[0]);
+
+        final Configuration configuration = bar.getResources().getConfiguration();
+        final Locale locale = configuration.locale;
+        try {
+            configuration.locale = locale.equals(Locale.GERMANY) ? Locale.FRANCE : Locale.GERMANY;
+            bar.dispatchConfigurationChanged(configuration);
+            bar.onDraw(canvas);
+            assertEquals(6, formatted[0]);
+        } finally {
+            configuration.locale = locale;
+        }
+    }
+
+    @Test
+    public void setHistogramCopiesBins() throws Exception {
+        final float[] bins = {1f, 2f, 4f};
+        bar.setHistogram(bins);
+        bins[0] = 0f;
+        bins[2] = 0f;
+
+        final float[][] drawn = new float[1][];
+        bar.onDraw(new Canvas(Bitmap.createBitmap(1000, 100, Bitmap.Config.ARGB_8888)) {
+            @Override
+            public void drawLines(float[] points, Paint paint) {
+                drawn[0] = points.clone();
+            }
+        });
+        // one line per bin from the base up, as tall as the bins that were set
+        assertEquals(12, drawn[0].length);
+        final float base = drawn[0][1];
+        final float first = base - drawn[0][3];
+        assertTrue("first bin " + first, first > 0f);
+        assertEquals(2 * first, base - drawn[0][7], 1e-3f);
+        assertEquals(4 * first, base - drawn[0][11], 1e-3f);
+    }
+}
@@ -0,0 +1,130 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class LatestRangeDispatcherTest {
+
+    private final Queue<Runnable> queued = new ArrayDeque<>();
+    private final Executor executor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            queued.add(command);
+        }
+    };
+    private IntRangeSeekBar bar;
+    private int delivered;
+    private int lastMax;
+    private boolean fail;
+    private final List<Integer> results = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        bar = new IntRangeSeekBar(RuntimeEnvironment.application);
+    }
+
+    private LatestRangeDispatcher<Integer, Void> newDispatcher() {
+        return new LatestRangeDispatcher<>(bar, new GHRangeSeekBar.AsyncRangeListener<Integer, Void>() {
+            @Override
+            public Void onRangeSeekBarValuesChanged(GHRangeSeekBar<?> bar, Integer minValue, Integer maxValue) {
+                delivered++;
+                lastMax = maxValue;
+                if (fail) {
+                    throw new IllegalStateException("listener failed");
+                }
+                return null;
+            }
+
+            @Override
+            public void onRangeSeekBarResult(GHRangeSeekBar<?> bar, Void result) {
+            }
+        }, executor);
+    }
+
+    @Test
+    public void conflatesToLatestSelection() throws Exception {
+        LatestRangeDispatcher<Integer, Void> dispatcher = newDispatcher();
+        dispatcher.submit(0, 10);
+        dispatcher.submit(0, 20);
+        dispatcher.submit(0, 30);
+        assertEquals(1, queued.size());
+        queued.poll().run();
+        assertEquals(1, delivered);
+        assertEquals(30, lastMax);
+    }
+
+    private LatestRangeDispatcher<Integer, Integer> newResultDispatcher() {
+        return new LatestRangeDispatcher<>(bar, new GHRangeSeekBar.AsyncRangeListener<Integer, Integer>() {
+            @Override
+            public Integer onRangeSeekBarValuesChanged(GHRangeSeekBar<?> bar, Integer minValue, Integer maxValue) {
+                return maxValue;
+            }
+
+            @Override
+            public void onRangeSeekBarResult(GHRangeSeekBar<?> bar, Integer result) {
+                results.add(result);
+            }
+        }, executor);
+    }
+
+    @Test
+    public void postsResultWhileDetached() throws Exception {
+        assertFalse(bar.isAttachedToWindow());
+        LatestRangeDispatcher<Integer, Integer> dispatcher = newResultDispatcher();
+        ShadowLooper.pauseMainLooper();
+        dispatcher.submit(0, 10);
+        queued.poll().run();
+        assertTrue(results.isEmpty());
+        ShadowLooper.runUiThreadTasks();
+        assertEquals(1, results.size());
+        assertEquals(10, (int) results.get(0));
+    }
+
+    @Test
+    public void dropsResultOfSupersededSelection() throws Exception {
+        LatestRangeDispatcher<Integer, Integer> dispatcher = newResultDispatcher();
+        ShadowLooper.pauseMainLooper();
+        dispatcher.submit(0, 10);
+        queued.poll().run();
+        dispatcher.submit(0, 20);
+        ShadowLooper.runUiThreadTasks();
+        assertTrue(results.isEmpty());
+        queued.poll().run();
+        ShadowLooper.runUiThreadTasks();
+        assertEquals(1, results.size());
+        assertEquals(20, (int) results.get(0));
+    }
+
+    @Test
+    public void survivesThrowingListener() throws Exception {
+        LatestRangeDispatcher<Integer, Void> dispatcher = newDispatcher();
+        fail = true;
+        dispatcher.submit(0, 10);
+        try {
+            queued.poll().run();
+            fail("expected the listener's exception");
+        } catch (IllegalStateException expected) {
+        }
+        fail = false;
+        dispatcher.submit(0, 20);
+        assertEquals(1, queued.size());
+        queued.poll().run();
+        assertEquals(2, delivered);
+        assertEquals(20, lastMax);
+    }
+}
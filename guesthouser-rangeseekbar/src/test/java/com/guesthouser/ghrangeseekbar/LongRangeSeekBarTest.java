@@ -0,0 +1,53 @@
+package com.guesthouser.ghrangeseekbar;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class LongRangeSeekBarTest {
+
+    private static final long MIN = 1L << 60;
+
+    @Test
+    public void selectedValuesStayExactBeyondDoublePrecision() throws Exception {
+        LongRangeSeekBar bar = new LongRangeSeekBar(RuntimeEnvironment.application);
+        bar.setRangeValues(MIN, MIN + 1000000000000L);
+        bar.setSelectedMin(MIN + 1);
+        bar.setSelectedMax(MIN + 999999999999L);
+        assertEquals(MIN + 1, bar.getSelectedMin());
+        assertEquals(MIN + 999999999999L, bar.getSelectedMax());
+        bar.setSelectedMinValue(MIN + 123456789L);
+        assertEquals(MIN + 123456789L, bar.getSelectedMin());
+    }
+
+    @Test
+    public void editorSelectionStaysExactBeyondDoublePrecision() throws Exception {
+        LongRangeSeekBar bar = new LongRangeSeekBar(RuntimeEnvironment.application);
+        bar.edit().range(MIN, MIN + 1000000000000L).selection(MIN + 1, MIN + 999999999999L).apply();
+        assertEquals(MIN + 1, bar.getSelectedMin());
+        assertEquals(MIN + 999999999999L, bar.getSelectedMax());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void editorRejectsSelectionBelowDoublePrecision() throws Exception {
+        LongRangeSeekBar bar = new LongRangeSeekBar(RuntimeEnvironment.application);
+        // both ends round to the same double
+        bar.edit().range(MIN, MIN + 100).selection(MIN + 2, MIN + 1).apply();
+    }
+
+    @Test
+    public void selectedValuesAreClamped() throws Exception {
+        LongRangeSeekBar bar = new LongRangeSeekBar(RuntimeEnvironment.application);
+        bar.setRangeValues(MIN, MIN + 10);
+        bar.setSelectedMin(Long.MIN_VALUE);
+        bar.setSelectedMax(Long.MAX_VALUE);
+        assertEquals(MIN, bar.getSelectedMin());
+        assertEquals(MIN + 10, bar.getSelectedMax());
+    }
+}
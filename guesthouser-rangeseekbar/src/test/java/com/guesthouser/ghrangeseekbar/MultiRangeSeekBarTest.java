@@ -0,0 +1,106 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.graphics.Bitmap;
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowMotionEvent;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class MultiRangeSeekBarTest {
+
+    // a 20px thumb on a 1000px bar leaves a 980px track, 9.8px per value of the default 0 - 100 range
+    private static final int WIDTH = 1000;
+
+    private MultiRangeSeekBar<Integer> bar;
+
+    @Before
+    public void setUp() throws Exception {
+        bar = new MultiRangeSeekBar<>(RuntimeEnvironment.application);
+        bar.setThumbImage(Bitmap.createBitmap(20, 20, Bitmap.Config.ARGB_8888));
+        bar.layout(0, 0, WIDTH, 100);
+    }
+
+    @Test
+    public void dragContinuesWithSecondFingerAfterFirstLifts() throws Exception {
+        // finger 0 presses the middle thumb, at 50
+        bar.onTouchEvent(event(MotionEvent.ACTION_DOWN, 0, 500f));
+        MotionEvent pointerDown = event(MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), 0, 500f);
+        shadowOf(pointerDown).setPointer2(600f, 50f);
+        shadowOf(pointerDown).setPointerIds(0, 1);
+        shadowOf(pointerDown).setPointerIndex(1);
+        bar.onTouchEvent(pointerDown);
+        MotionEvent pointerUp = event(MotionEvent.ACTION_POINTER_UP, 0, 500f);
+        shadowOf(pointerUp).setPointer2(600f, 50f);
+        shadowOf(pointerUp).setPointerIds(0, 1);
+        shadowOf(pointerUp).setPointerIndex(0);
+        bar.onTouchEvent(pointerUp);
+
+        // only finger 1 is left and moves the thumb to 75
+        bar.onTouchEvent(event(MotionEvent.ACTION_MOVE, 1, 745f));
+        assertEquals(Integer.valueOf(75), bar.getSelectedValue(1));
+        bar.onTouchEvent(event(MotionEvent.ACTION_UP, 1, 745f));
+        assertEquals(Integer.valueOf(75), bar.getSelectedValue(1));
+    }
+
+    @Test
+    public void dragReturnsToFirstFingerWhenActiveSecondFingerLifts() throws Exception {
+        bar.onTouchEvent(event(MotionEvent.ACTION_DOWN, 0, 500f));
+        // finger 1 comes down and becomes the active pointer
+        MotionEvent pointerDown = event(MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), 0, 500f);
+        shadowOf(pointerDown).setPointer2(600f, 50f);
+        shadowOf(pointerDown).setPointerIds(0, 1);
+        shadowOf(pointerDown).setPointerIndex(1);
+        bar.onTouchEvent(pointerDown);
+        MotionEvent pointerUp = event(MotionEvent.ACTION_POINTER_UP | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), 0, 500f);
+        shadowOf(pointerUp).setPointer2(600f, 50f);
+        shadowOf(pointerUp).setPointerIds(0, 1);
+        shadowOf(pointerUp).setPointerIndex(1);
+        bar.onTouchEvent(pointerUp);
+
+        // finger 0 is left and moves the thumb to 30
+        bar.onTouchEvent(event(MotionEvent.ACTION_MOVE, 0, 304f));
+        assertEquals(Integer.valueOf(30), bar.getSelectedValue(1));
+        bar.onTouchEvent(event(MotionEvent.ACTION_UP, 0, 304f));
+        assertEquals(Integer.valueOf(30), bar.getSelectedValue(1));
+    }
+
+    @Test
+    public void longValuesStayExactBeyondDoublePrecision() throws Exception {
+        MultiRangeSeekBar<Long> longBar = new MultiRangeSeekBar<>(RuntimeEnvironment.application);
+        final long min = 1L << 60;
+        longBar.setRangeValues(min, min + 1000000000000L);
+        longBar.setSelectedValues(min + 1, min + 2, min + 999999999999L);
+        assertEquals(Long.valueOf(min + 1), longBar.getSelectedValue(0));
+        assertEquals(Long.valueOf(min + 2), longBar.getSelectedValue(1));
+        longBar.setSelectedValue(2, min + 3);
+        assertEquals(Long.valueOf(min + 3), longBar.getSelectedValue(2));
+    }
+
+    @Test
+    public void setSelectedValues_sortsOntoThumbs() throws Exception {
+        bar.setSelectedValues(80, 10, 40);
+        assertEquals(Integer.valueOf(10), bar.getSelectedValue(0));
+        assertEquals(Integer.valueOf(40), bar.getSelectedValue(1));
+        assertEquals(Integer.valueOf(80), bar.getSelectedValue(2));
+    }
+
+    private static MotionEvent event(int action, int pointerId, float x) {
+        MotionEvent event = MotionEvent.obtain(0, 0, action, x, 50f, 0);
+        shadowOf(event).setPointerIds(pointerId, pointerId + 1);
+        return event;
+    }
+
+    private static ShadowMotionEvent shadowOf(MotionEvent event) {
+        return Shadow.extract(event);
+    }
+}
@@ -0,0 +1,64 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class ThumbCacheTest {
+
+    @Test
+    public void largeImage_isSubsampledThenScaled() throws Exception {
+        BitmapFactory.Options options = bounds(400, "image/png");
+        ThumbCache.setScaledDecode(options, 48);
+        // 400 / 8 = 50 is the last power of two at least 48 tall
+        assertEquals(8, options.inSampleSize);
+        assertTrue(options.inScaled);
+        assertEquals(50, options.inDensity);
+        assertEquals(48, options.inTargetDensity);
+        assertFalse(options.inJustDecodeBounds);
+        assertEquals(Bitmap.Config.ARGB_8888, options.inPreferredConfig);
+    }
+
+    @Test
+    public void exactPowerOfTwo_isOnlySubsampled() throws Exception {
+        BitmapFactory.Options options = bounds(192, "image/png");
+        ThumbCache.setScaledDecode(options, 48);
+        assertEquals(4, options.inSampleSize);
+        assertEquals(options.inDensity, options.inTargetDensity);
+    }
+
+    @Test
+    public void smallImage_isScaledUp() throws Exception {
+        BitmapFactory.Options options = bounds(30, "image/png");
+        ThumbCache.setScaledDecode(options, 48);
+        assertEquals(1, options.inSampleSize);
+        assertEquals(30, options.inDensity);
+        assertEquals(48, options.inTargetDensity);
+    }
+
+    @Test
+    public void jpeg_isDecodedWithoutAlpha() throws Exception {
+        BitmapFactory.Options options = bounds(100, "image/jpeg");
+        ThumbCache.setScaledDecode(options, 48);
+        assertEquals(2, options.inSampleSize);
+        assertEquals(Bitmap.Config.RGB_565, options.inPreferredConfig);
+    }
+
+    private static BitmapFactory.Options bounds(int height, String mimeType) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        options.outHeight = height;
+        options.outWidth = height;
+        options.outMimeType = mimeType;
+        return options;
+    }
+}
@@ -0,0 +1,198 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowMotionEvent;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Recorded sequence of touch events, e.g. a drag session on a {@link GHRangeSeekBar}, that can be stored and replayed
+ * with {@link TouchTraceReplayer}. Each event keeps its time, action, action index and the id and position of every
+ * pointer; historical samples are not kept. Checked-in traces live next to this class in the test resources.
+ * <p/>
+ * To record, register the trace as touch listener of the bar; it never consumes events:
+ * <pre>
+ * TouchTrace trace = new TouchTrace();
+ * bar.setOnTouchListener(trace);
+ * ...
+ * trace.writeTo(new FileOutputStream(file));
+ * </pre>
+ * The binary format is big-endian: the magic {@code "GHTT"}, a version short and the event count as int, then per event
+ * the milliseconds since the previous event as int, action, action index and pointer count as bytes, and per pointer
+ * its id as byte and x and y as floats.
+ */
+public final class TouchTrace implements View.OnTouchListener {
+
+    private static final int MAGIC = 0x47485454;
+    private static final short VERSION = 1;
+
+    private int size;
+    private long[] times = new long[64];
+    private byte[] actions = new byte[64];
+    private byte[] actionIndexes = new byte[64];
+    // pointers of event i are at [pointerStarts[i], pointerStarts[i + 1])
+    private int[] pointerStarts = new int[65];
+    private byte[] pointerIds = new byte[64];
+    private float[] xs = new float[64];
+    private float[] ys = new float[64];
+
+    @Override
+    public boolean onTouch(View v, MotionEvent event) {
+        record(event);
+        return false;
+    }
+
+    /**
+     * Appends the given event to the trace.
+     */
+    public void record(MotionEvent event) {
+        final int pointerCount = event.getPointerCount();
+        ensureCapacity(size + 1, pointerStarts[size] + pointerCount);
+        times[size] = event.getEventTime();
+        actions[size] = (byte) event.getActionMasked();
+        actionIndexes[size] = (byte) event.getActionIndex();
+        int pointer = pointerStarts[size];
+        for (int i = 0; i < pointerCount; i++, pointer++) {
+            pointerIds[pointer] = (byte) event.getPointerId(i);
+            xs[pointer] = event.getX(i);
+            ys[pointer] = event.getY(i);
+        }
+        size++;
+        pointerStarts[size] = pointer;
+    }
+
+    /**
+     * Number of recorded events.
+     */
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the masked action of the given event, e.g. {@link MotionEvent#ACTION_MOVE}.
+     */
+    public int getActionMasked(int event) {
+        return actions[event];
+    }
+
+    /**
+     * Returns the time of the given event in milliseconds after the first one.
+     */
+    public long getTime(int event) {
+        return times[event] - times[0];
+    }
+
+    /**
+     * Creates a new MotionEvent for the given recorded event, shifted to start at the given down time. The caller has to
+     * recycle it. Robolectric's MotionEvent carries at most two pointers.
+     *
+     * @throws IllegalArgumentException if the event has more than two pointers.
+     */
+    public MotionEvent obtainEvent(int event, long downTime) {
+        final int start = pointerStarts[event];
+        final int pointerCount = pointerStarts[event + 1] - start;
+        if (pointerCount > 2) {
+            throw new IllegalArgumentException("Event " + event + " has " + pointerCount + " pointers, at most 2 are supported");
+        }
+        final int action = actions[event] | (actionIndexes[event] << GHRangeSeekBar.ACTION_POINTER_INDEX_SHIFT);
+        final MotionEvent motionEvent = MotionEvent.obtain(downTime, downTime + getTime(event), action,
+                xs[start], ys[start], 0);
+        final ShadowMotionEvent shadow = Shadow.extract(motionEvent);
+        if (pointerCount == 2) {
+            shadow.setPointer2(xs[start + 1], ys[start + 1]);
+            shadow.setPointerIds(pointerIds[start], pointerIds[start + 1]);
+        } else {
+            shadow.setPointerIds(pointerIds[start], -1);
+        }
+        shadow.setPointerIndex(actionIndexes[event]);
+        return motionEvent;
+    }
+
+    /**
+     * Writes the trace in the binary format described above. The stream is not closed.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(size);
+        for (int event = 0; event < size; event++) {
+            data.writeInt((int) (event == 0 ? 0 : times[event] - times[event - 1]));
+            data.writeByte(actions[event]);
+            data.writeByte(actionIndexes[event]);
+            data.writeByte(pointerStarts[event + 1] - pointerStarts[event]);
+            for (int pointer = pointerStarts[event]; pointer < pointerStarts[event + 1]; pointer++) {
+                data.writeByte(pointerIds[pointer]);
+                data.writeFloat(xs[pointer]);
+                data.writeFloat(ys[pointer]);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a trace written by {@link #writeTo(OutputStream)}. The stream is not closed.
+     *
+     * @throws IOException if the stream does not hold a trace of a known version.
+     */
+    public static TouchTrace readFrom(InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a touch trace");
+        }
+        final short version = data.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported touch trace version " + version);
+        }
+        final int count = data.readInt();
+        final TouchTrace trace = new TouchTrace();
+        long time = 0;
+        for (int event = 0; event < count; event++) {
+            time += data.readInt();
+            final byte action = data.readByte();
+            final byte actionIndex = data.readByte();
+            final int pointerCount = data.readUnsignedByte();
+            trace.ensureCapacity(event + 1, trace.pointerStarts[event] + pointerCount);
+            trace.times[event] = time;
+            trace.actions[event] = action;
+            trace.actionIndexes[event] = actionIndex;
+            int pointer = trace.pointerStarts[event];
+            for (int i = 0; i < pointerCount; i++, pointer++) {
+                trace.pointerIds[pointer] = data.readByte();
+                trace.xs[pointer] = data.readFloat();
+                trace.ys[pointer] = data.readFloat();
+            }
+            trace.pointerStarts[event + 1] = pointer;
+            trace.size = event + 1;
+        }
+        return trace;
+    }
+
+    private void ensureCapacity(int events, int pointers) {
+        if (events > times.length) {
+            final int capacity = Math.max(events, times.length * 2);
+            times = Arrays.copyOf(times, capacity);
+            actions = Arrays.copyOf(actions, capacity);
+            actionIndexes = Arrays.copyOf(actionIndexes, capacity);
+            pointerStarts = Arrays.copyOf(pointerStarts, capacity + 1);
+        }
+        if (pointers > xs.length) {
+            final int capacity = Math.max(pointers, xs.length * 2);
+            pointerIds = Arrays.copyOf(pointerIds, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+    }
+}
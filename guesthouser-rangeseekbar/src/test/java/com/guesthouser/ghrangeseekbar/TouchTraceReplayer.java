@@ -0,0 +1,126 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Replays a {@link TouchTrace} against a {@link GHRangeSeekBar} and reports, per event, the time spent in
+ * {@link GHRangeSeekBar#onTouchEvent(MotionEvent)} and the bytes it allocated. Listener notifications are best counted
+ * with a listener of the test.
+ * <p/>
+ * Events are delivered back to back on the calling thread, which has to be the UI thread; no frames are rendered in
+ * between, so notifications coalesced per frame only show up at the end of the drag. Allocations are read from the
+ * JVM's per-thread allocation counter, {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, less what
+ * reading the counter allocates itself.
+ */
+public final class TouchTraceReplayer {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private TouchTraceReplayer() {
+    }
+
+    /**
+     * Replays all events of the trace, shifted to start now.
+     *
+     * @param bar   The laid out bar to replay against.
+     * @param trace The events to replay.
+     * @return The measurements per event.
+     */
+    public static Report replay(GHRangeSeekBar<?> bar, TouchTrace trace) {
+        final int size = trace.size();
+        final Report report = new Report(size);
+        final long thread = Thread.currentThread().getId();
+        final long counterBytes = counterBytes(thread);
+        final long downTime = SystemClock.uptimeMillis();
+        for (int i = 0; i < size; i++) {
+            final MotionEvent event = trace.obtainEvent(i, downTime);
+            final long bytes = THREADS.getThreadAllocatedBytes(thread);
+            final long start = System.nanoTime();
+            bar.onTouchEvent(event);
+            report.nanos[i] = System.nanoTime() - start;
+            report.allocatedBytes[i] = Math.max(0L, THREADS.getThreadAllocatedBytes(thread) - bytes - counterBytes);
+            event.recycle();
+        }
+        return report;
+    }
+
+    /**
+     * Bytes allocated by reading the allocation counter, the least of a few tries.
+     */
+    private static long counterBytes(long thread) {
+        long least = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            final long bytes = THREADS.getThreadAllocatedBytes(thread);
+            least = Math.min(least, THREADS.getThreadAllocatedBytes(thread) - bytes);
+        }
+        return least;
+    }
+
+    /**
+     * Measurements of a replay, one entry per event of the trace.
+     */
+    public static final class Report {
+
+        private final long[] nanos;
+        private final long[] allocatedBytes;
+
+        private Report(int size) {
+            nanos = new long[size];
+            allocatedBytes = new long[size];
+        }
+
+        public int size() {
+            return nanos.length;
+        }
+
+        /**
+         * Time spent handling the given event, in nanoseconds.
+         */
+        public long getNanos(int event) {
+            return nanos[event];
+        }
+
+        /**
+         * Bytes allocated while handling the given event.
+         */
+        public long getAllocatedBytes(int event) {
+            return allocatedBytes[event];
+        }
+
+        public long getTotalNanos() {
+            long total = 0;
+            for (long value : nanos) {
+                total += value;
+            }
+            return total;
+        }
+
+        public long getMaxNanos() {
+            long max = 0;
+            for (long value : nanos) {
+                max = Math.max(max, value);
+            }
+            return max;
+        }
+
+        public long getTotalAllocatedBytes() {
+            long total = 0;
+            for (long value : allocatedBytes) {
+                total += value;
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{events=" + size()
+                    + ", totalNanos=" + getTotalNanos()
+                    + ", maxNanos=" + getMaxNanos()
+                    + ", allocatedBytes=" + getTotalAllocatedBytes() + "}";
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.guesthouser.ghrangeseekbar;
+
+import android.graphics.Bitmap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class TouchTraceReplayerTest {
+
+    /**
+     * A 1000px bar over 0 - 10000: finger 0 drags the min thumb to about 3000, finger 1 comes down at 7000 and takes
+     * over, finger 0 lifts and finger 1 drags on to 4000 and lifts. 114 events.
+     */
+    private static final String TRACE = "drag_two_fingers.trace";
+
+    private IntRangeSeekBar bar;
+    private TouchTrace trace;
+    private int notifications;
+
+    @Before
+    public void setUp() throws Exception {
+        bar = new IntRangeSeekBar(RuntimeEnvironment.application);
+        bar.setThumbImage(Bitmap.createBitmap(20, 20, Bitmap.Config.ARGB_8888));
+        bar.layout(0, 0, 1000, 100);
+        bar.setRangeValues(0, 10000);
+        InputStream in = getClass().getResourceAsStream(TRACE);
+        try {
+            trace = TouchTrace.readFrom(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void recordedDragEndsOnRecordedSelection() throws Exception {
+        bar.setOnRangeChangeListener(new IntRangeSeekBar.OnRangeChangeListener() {
+            @Override
+            public void onRangeSeekBarValuesChanged(IntRangeSeekBar bar, int minValue, int maxValue) {
+                notifications++;
+            }
+        });
+        TouchTraceReplayer.Report report = TouchTraceReplayer.replay(bar, trace);
+        assertEquals(114, report.size());
+        assertEquals(4000, bar.getSelectedMin());
+        assertEquals(10000, bar.getSelectedMax());
+        // notified once, on release
+        assertEquals(1, notifications);
+    }
+
+    @Test
+    public void countsAllocations() throws Exception {
+        // values above 127 are boxed into new Integers for every notification
+        bar.setNotifyWhileDragging(true);
+        bar.setOnRangeSeekBarChangeListener(new GHRangeSeekBar.OnRangeSeekBarChangeListener<Integer>() {
+            @Override
+            public void onRangeSeekBarValuesChanged(GHRangeSeekBar<?> bar, Integer minValue, Integer maxValue) {
+                notifications++;
+            }
+        });
+        TouchTraceReplayer.Report report = TouchTraceReplayer.replay(bar, trace);
+        assertTrue(notifications > 100);
+        assertTrue(report.toString(), report.getTotalAllocatedBytes() >= 16L * notifications);
+    }
+
+    @Test
+    public void dragMetricsCountTheSession() throws Exception {
+        // frame callbacks would run as soon as they are posted and post themselves again
+        ShadowLooper.pauseMainLooper();
+        final DragMetrics[] reported = new DragMetrics[1];
+        bar.setDragMetricsSink(new DragMetrics.Sink() {
+            @Override
+            public void onDragSessionFinished(GHRangeSeekBar<?> bar, DragMetrics metrics) {
+                reported[0] = metrics;
+            }
+        });
+        TouchTraceReplayer.replay(bar, trace);
+        assertEquals(trace.size(), reported[0].getEventCount());
+        assertEquals(1, reported[0].getNotificationCount());
+        final int invalidations = reported[0].getInvalidationCount();
+        assertTrue("invalidations " + invalidations, invalidations >= 100);
+        bar.invalidate();
+        assertEquals(invalidations, reported[0].getInvalidationCount());
+    }
+
+    @Test
+    public void traceRoundTrips() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeTo(out);
+        TouchTrace read = TouchTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(trace.size(), read.size());
+        for (int i = 0; i < trace.size(); i++) {
+            assertEquals(trace.getActionMasked(i), read.getActionMasked(i));
+            assertEquals(trace.getTime(i), read.getTime(i));
+        }
+    }
+}